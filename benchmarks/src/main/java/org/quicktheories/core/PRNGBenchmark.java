@@ -0,0 +1,85 @@
+package org.quicktheories.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Values per second drawn from the default and splittable generators, both
+ * raw and within the kinds of interval requested by generators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PRNGBenchmark {
+
+  private final XOrShiftPRNG           xorShift = new XOrShiftPRNG(1);
+  private final Xoshiro256StarStarPRNG xoshiro  = new Xoshiro256StarStarPRNG(1);
+
+  @Benchmark
+  public long xorShiftRaw() {
+    return xorShift.nextLong();
+  }
+
+  @Benchmark
+  public long xoshiroRaw() {
+    return xoshiro.nextLong();
+  }
+
+  @Benchmark
+  public long xorShiftSmallRange() {
+    return xorShift.nextLong(0, 100);
+  }
+
+  @Benchmark
+  public long xoshiroSmallRange() {
+    return xoshiro.nextLong(0, 100);
+  }
+
+  @Benchmark
+  public long xorShiftFullRange() {
+    return xorShift.nextLong(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  @Benchmark
+  public long xoshiroFullRange() {
+    return xoshiro.nextLong(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  @Benchmark
+  public long xorShiftWideRange() {
+    return xorShift.nextLong(Long.MIN_VALUE, -(1L << 62));
+  }
+
+  @Benchmark
+  public long xoshiroWideRange() {
+    return xoshiro.nextLong(Long.MIN_VALUE, -(1L << 62));
+  }
+
+  @Benchmark
+  public long xorShiftOverHalfRange() {
+    return xorShift.nextLong(-(1L << 62), Long.MAX_VALUE);
+  }
+
+  @Benchmark
+  public long xoshiroOverHalfRange() {
+    return xoshiro.nextLong(-(1L << 62), Long.MAX_VALUE);
+  }
+
+  @Benchmark
+  public long xoshiroStream() {
+    return xoshiro.stream(8).nextLong();
+  }
+
+}
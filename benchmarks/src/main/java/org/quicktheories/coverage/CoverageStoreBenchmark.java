@@ -0,0 +1,93 @@
+package org.quicktheories.coverage;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sun.quicktheories.coverage.CodeCoverageStore;
+
+/**
+ * Examples per second of the coverage bookkeeping CoverageGuidance performs
+ * for each example, with many instrumented classes loaded but only a few
+ * executed by the property. guidedExample includes recording the example in
+ * the cumulative coverage bitmap.
+ *
+ * Classes are registered with the store directly, as installing the agent
+ * would instrument the benchmark harness itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoverageStoreBenchmark {
+
+  private static final int PROBES_PER_CLASS = 16;
+
+  @Param({ "5000" })
+  private int classes;
+
+  @Param({ "20" })
+  private int classesExecuted;
+
+  private int[] executed;
+
+  private final CoverageBitmap coverage = new CoverageBitmap();
+  private final int[] hitProbes = new int[1024];
+
+  @Setup
+  public void registerClasses() {
+    CodeCoverageStore.resetAllStaticState();
+    int[] ids = new int[classes];
+    for (int i = 0; i != classes; i++) {
+      ids[i] = CodeCoverageStore.registerClass("com/example/C" + i);
+      CodeCoverageStore.registerClassProbes(ids[i], PROBES_PER_CLASS);
+    }
+    executed = new int[classesExecuted];
+    for (int i = 0; i != classesExecuted; i++) {
+      executed[i] = ids[(i * classes) / classesExecuted];
+    }
+  }
+
+  @TearDown
+  public void clear() {
+    CodeCoverageStore.resetAllStaticState();
+  }
+
+  @Benchmark
+  public Collection<Long> example() {
+    runExample();
+    return CodeCoverageStore.getHits();
+  }
+
+  @Benchmark
+  public boolean guidedExample() {
+    runExample();
+    int count = CodeCoverageStore.getHitProbes(hitProbes);
+    boolean newCoverage = coverage.record(hitProbes, count);
+    coverage.merge();
+    return newCoverage;
+  }
+
+  private void runExample() {
+    CodeCoverageStore.reset();
+    for (int each : executed) {
+      CodeCoverageStore.visitProbes(each, 0, true, false, true, true);
+      CodeCoverageStore.visitProbes(each, 4, false, true);
+    }
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.quicktheories.coverage;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Workload for InstrumentationBenchmark. Each iteration calls a small method
+ * with a few blocks and a larger one with too many blocks for probes to be
+ * held in locals, so every instrumentation strategy is exercised.
+ */
+public class HotLoop implements IntUnaryOperator {
+
+  @Override
+  public int applyAsInt(int iterations) {
+    int acc = 0;
+    for (int i = 0; i != iterations; i++) {
+      acc = acc + step(i ^ acc) + classify(i);
+    }
+    return acc;
+  }
+
+  private static int step(int i) {
+    if ((i & 1) == 0) {
+      return i >> 1;
+    }
+    return 3 * i + 1;
+  }
+
+  private static int classify(int i) {
+    switch (i & 15) {
+    case 0:
+      return 3;
+    case 1:
+      return 5;
+    case 2:
+      return 7;
+    case 3:
+      return 11;
+    case 4:
+      return 13;
+    case 5:
+      return 17;
+    case 6:
+      return 19;
+    case 7:
+      return 23;
+    case 8:
+      return 29;
+    case 9:
+      return 31;
+    case 10:
+      return 37;
+    case 11:
+      return 41;
+    case 12:
+      return 43;
+    case 13:
+      return 47;
+    case 14:
+      return 53;
+    default:
+      return i > 1000 ? 59 : 61;
+    }
+  }
+
+}
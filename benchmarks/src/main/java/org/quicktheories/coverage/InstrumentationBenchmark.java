@@ -0,0 +1,80 @@
+package org.quicktheories.coverage;
+
+import java.lang.instrument.IllegalClassFormatException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sun.quicktheories.coverage.CodeCoverageStore;
+
+/**
+ * Examples per second of a hot loop, loaded without instrumentation, with
+ * probes passed to the store on each method exit (as for retransformed
+ * classes), with probes written to a static field, and with edge hits counted
+ * as well.
+ *
+ * The class is transformed and defined in its own loader, as installing the
+ * agent would instrument the benchmark harness itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+  private static final int ITERATIONS = 1000;
+
+  @Param({ "none", "store", "field", "edges" })
+  private String probes;
+
+  private IntUnaryOperator loop;
+
+  @Setup
+  public void load() throws ReflectiveOperationException,
+      IllegalClassFormatException {
+    CodeCoverageStore.resetAllStaticState();
+    String name = HotLoop.class.getName();
+    byte[] bytes = new ClassloaderByteArraySource(
+        HotLoop.class.getClassLoader()).getBytes(name).get();
+    if (!probes.equals("none")) {
+      // passing a class being redefined prevents a field being added
+      Class<?> redefined = probes.equals("store") ? HotLoop.class : null;
+      bytes = new CoverageTransformer(s -> true,
+          probes.equals("edges")).transform(
+          HotLoop.class.getClassLoader(), name, redefined, null, bytes);
+    }
+    loop = (IntUnaryOperator) new Loader().define(name, bytes).newInstance();
+  }
+
+  @TearDown
+  public void clear() {
+    CodeCoverageStore.resetAllStaticState();
+  }
+
+  @Benchmark
+  public int example() {
+    CodeCoverageStore.reset();
+    return loop.applyAsInt(ITERATIONS);
+  }
+
+  private static final class Loader extends ClassLoader {
+    Class<?> define(String name, byte[] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+package org.quicktheories.coverage;
+
+import java.io.IOException;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sun.quicktheories.coverage.CodeCoverageStore;
+
+/**
+ * Classes per second transformed by the coverage agent's transformer, without
+ * a cache and with every class already in the disk cache (as for every JVM
+ * after the first).
+ *
+ * A new transformer is created for each invocation, so that common super
+ * classes computed for one invocation are not reused by the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+  private static final Class<?>[] CLASSES = { java.util.ArrayList.class,
+      java.util.HashMap.class, java.util.TreeMap.class,
+      java.util.LinkedList.class, java.util.ArrayDeque.class,
+      java.util.Collections.class, java.util.Arrays.class,
+      java.util.concurrent.ConcurrentHashMap.class, java.lang.String.class,
+      java.lang.Integer.class, java.math.BigInteger.class,
+      java.util.regex.Pattern.class };
+
+  @Param({ "none", "warm" })
+  private String cache;
+
+  private Path              directory;
+  private byte[][]          bytes;
+  private final ClassLoader loader = TransformBenchmark.class
+      .getClassLoader();
+
+  @Setup
+  public void prepare() throws IOException, IllegalClassFormatException {
+    directory = Files.createTempDirectory("transform-benchmark");
+    ClassByteArraySource source = new ClassloaderByteArraySource(loader);
+    bytes = new byte[CLASSES.length][];
+    for (int i = 0; i != CLASSES.length; i++) {
+      bytes[i] = source.getBytes(CLASSES[i].getName()).get();
+    }
+    transformAll();
+  }
+
+  @TearDown
+  public void clear() throws IOException {
+    CodeCoverageStore.resetAllStaticState();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(12)
+  public int transformAll() throws IllegalClassFormatException {
+    CoverageTransformer transformer = new CoverageTransformer(s -> true,
+        false, cache.equals("none") ? Optional.empty()
+            : Optional.of(new TransformedClassCache(directory)));
+    int size = 0;
+    for (int i = 0; i != CLASSES.length; i++) {
+      size = size + transformer.transform(loader,
+          CLASSES[i].getName().replace('.', '/'), null, null, bytes[i]).length;
+    }
+    // registered classes would otherwise grow without limit
+    CodeCoverageStore.resetAllStaticState();
+    return size;
+  }
+
+}
@@ -0,0 +1,83 @@
+package org.quicktheories.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.PseudoRandom;
+
+/**
+ * Compares the boxed HashSet of CRC32 values over copied precursor bytes that
+ * Core originally used to detect duplicates with the primitive set and
+ * in place hash that replaced it. Run with -prof gc to see the difference in
+ * allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeduplicationBenchmark {
+
+  private static final int PRECURSORS = 4096;
+
+  @Param({ "4", "64" })
+  int                      precursorLength;
+
+  private Precursor[]      precursors;
+
+  @Setup
+  public void setup() {
+    PseudoRandom r = Configuration.defaultPRNG(1);
+    precursors = new Precursor[PRECURSORS];
+    for (int i = 0; i != PRECURSORS; i++) {
+      Precursor p = new Precursor();
+      for (int j = 0; j != precursorLength; j++) {
+        // narrow range so some precursors are duplicated
+        p.store(r.nextLong(0, 3), Constraint.none());
+      }
+      precursors[i] = p;
+    }
+  }
+
+  @Benchmark
+  public int crc32InBoxedSet() {
+    Set<Long> visited = new HashSet<>();
+    int duplicates = 0;
+    for (Precursor each : precursors) {
+      CRC32 crc = new CRC32();
+      crc.update(each.bytes());
+      if (!visited.add(crc.getValue())) {
+        duplicates++;
+      }
+    }
+    return duplicates;
+  }
+
+  @Benchmark
+  public int hashInPrimitiveSet() {
+    LongHashSet visited = new LongHashSet();
+    int duplicates = 0;
+    for (Precursor each : precursors) {
+      if (!visited.add(each.hash())) {
+        duplicates++;
+      }
+    }
+    return duplicates;
+  }
+
+}
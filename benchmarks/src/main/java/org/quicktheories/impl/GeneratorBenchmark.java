@@ -0,0 +1,169 @@
+package org.quicktheories.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.Generate;
+import org.quicktheories.generators.SourceDSL;
+
+/**
+ * Values per second generated by each of the SourceDSL generators, drawing
+ * from a single reused data source as Core does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+  private static final int ATTEMPTS = 10;
+
+  private final Gen<Long> longs = SourceDSL.longs().all();
+  private final Gen<Integer> integers = SourceDSL.integers().all();
+  private final Gen<Double> doubles = SourceDSL.doubles().any();
+  private final Gen<Float> floats = SourceDSL.floats().any();
+  private final Gen<Character> characters = SourceDSL.characters()
+      .basicMultilingualPlane();
+  private final Gen<String> strings = SourceDSL.strings().basicLatinAlphabet()
+      .ofLengthBetween(0, 20);
+  private final Gen<List<Integer>> lists = SourceDSL.lists()
+      .of(SourceDSL.integers().all()).ofSizeBetween(0, 20);
+  private final Gen<Map<Integer, Long>> maps = SourceDSL.maps()
+      .of(SourceDSL.integers().all(), SourceDSL.longs().all())
+      .ofSizeBetween(0, 20);
+  private final Gen<Integer[]> arrays = SourceDSL.arrays()
+      .ofIntegers(SourceDSL.integers().all()).withLengthBetween(0, 20);
+  private final Gen<BigInteger> bigIntegers = SourceDSL.bigIntegers()
+      .ofBytes(16);
+  private final Gen<BigDecimal> bigDecimals = SourceDSL.bigDecimals()
+      .ofBytes(16).withScale(4);
+  private final Gen<String> arbitrary = SourceDSL.arbitrary().pick("a", "b",
+      "c", "d");
+  private final Gen<Date> dates = SourceDSL.dates()
+      .withMilliseconds(Long.MAX_VALUE);
+  private final Gen<LocalDate> localDates = SourceDSL.localDates()
+      .withDays(100000);
+  private final Gen<Boolean> booleans = SourceDSL.booleans().all();
+  private final Gen<Integer> ranges = Generate.range(0, 1000);
+  private final Gen<Long> wideLongRanges = Generate.longRange(Long.MIN_VALUE,
+      -(1L << 62));
+  private final Gen<Double> positiveDoubles = SourceDSL.doubles().positive();
+
+  private final ShapedDataSource source = new ShapedDataSource(
+      Configuration.defaultPRNG(1), ShapedDataSource.NO_FORCED_VALUES,
+      ATTEMPTS);
+
+  @Benchmark
+  public Long longs() {
+    return generate(longs);
+  }
+
+  @Benchmark
+  public Integer integers() {
+    return generate(integers);
+  }
+
+  @Benchmark
+  public Double doubles() {
+    return generate(doubles);
+  }
+
+  @Benchmark
+  public Float floats() {
+    return generate(floats);
+  }
+
+  @Benchmark
+  public Character characters() {
+    return generate(characters);
+  }
+
+  @Benchmark
+  public String strings() {
+    return generate(strings);
+  }
+
+  @Benchmark
+  public List<Integer> lists() {
+    return generate(lists);
+  }
+
+  @Benchmark
+  public Map<Integer, Long> maps() {
+    return generate(maps);
+  }
+
+  @Benchmark
+  public Integer[] arrays() {
+    return generate(arrays);
+  }
+
+  @Benchmark
+  public BigInteger bigIntegers() {
+    return generate(bigIntegers);
+  }
+
+  @Benchmark
+  public BigDecimal bigDecimals() {
+    return generate(bigDecimals);
+  }
+
+  @Benchmark
+  public String arbitrary() {
+    return generate(arbitrary);
+  }
+
+  @Benchmark
+  public Date dates() {
+    return generate(dates);
+  }
+
+  @Benchmark
+  public LocalDate localDates() {
+    return generate(localDates);
+  }
+
+  @Benchmark
+  public Boolean booleans() {
+    return generate(booleans);
+  }
+
+  @Benchmark
+  public Integer ranges() {
+    return generate(ranges);
+  }
+
+  @Benchmark
+  public Long wideLongRanges() {
+    return generate(wideLongRanges);
+  }
+
+  @Benchmark
+  public Double positiveDoubles() {
+    return generate(positiveDoubles);
+  }
+
+  private <T> T generate(Gen<T> gen) {
+    return source.generate(gen, ShapedDataSource.NO_FORCED_VALUES, ATTEMPTS)
+        .value();
+  }
+
+}
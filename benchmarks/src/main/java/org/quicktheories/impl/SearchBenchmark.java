@@ -0,0 +1,60 @@
+package org.quicktheories.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quicktheories.api.Pair;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.ExceptionReporter;
+import org.quicktheories.core.NoGuidance;
+import org.quicktheories.core.Strategy;
+import org.quicktheories.generators.SourceDSL;
+
+/**
+ * Examples per second searched by Core.findFalsifyingValue for properties
+ * that always hold, so the cost is entirely generation and search overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+  private static final int EXAMPLES = 10000;
+
+  private final Strategy strategy = new Strategy(Configuration.defaultPRNG(1),
+      EXAMPLES, 0, 0, 10, new ExceptionReporter(), prng -> new NoGuidance());
+
+  private final Property<Long> longs = new Property<>(l -> true,
+      SourceDSL.longs().all());
+
+  private final Property<List<Integer>> listsOfIntegers = new Property<>(
+      l -> true,
+      SourceDSL.lists().of(SourceDSL.integers().all()).ofSizeBetween(0, 100));
+
+  @Benchmark
+  @OperationsPerInvocation(EXAMPLES)
+  public Optional<Pair<Falsification<Long>, PrecursorDataPair<Long>>> longs() {
+    return new Core(strategy).findFalsifyingValue(longs, () -> 0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EXAMPLES)
+  public Optional<Pair<Falsification<List<Integer>>, PrecursorDataPair<List<Integer>>>> listsOfIntegers() {
+    return new Core(strategy).findFalsifyingValue(listsOfIntegers, () -> 0);
+  }
+
+}
@@ -0,0 +1,79 @@
+package org.quicktheories.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quicktheories.api.AsString;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.Gen;
+import org.quicktheories.core.NoGuidance;
+import org.quicktheories.core.Reporter;
+import org.quicktheories.core.Strategy;
+import org.quicktheories.generators.SourceDSL;
+
+/**
+ * Shrink cycles per second for a property falsified by large lists, so each
+ * cycle generates a list from the shrunk precursor and checks it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShrinkBenchmark {
+
+  private static final int SHRINK_CYCLES = 1000;
+
+  @Param({ "100", "1000" })
+  public int size;
+
+  private Gen<List<Integer>> lists;
+
+  private final Strategy strategy = new Strategy(Configuration.defaultPRNG(1),
+      1, 0, SHRINK_CYCLES, 10, new IgnoringReporter(),
+      prng -> new NoGuidance());
+
+  @Setup
+  public void setUp() {
+    lists = SourceDSL.lists().of(SourceDSL.integers().all())
+        .ofSizeBetween(size, size * 2);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SHRINK_CYCLES)
+  public void largeLists() {
+    TheoryRunner.runner(strategy, lists).check(l -> l.size() < size);
+  }
+
+  private static class IgnoringReporter implements Reporter {
+
+    @Override
+    public void falsification(long seed, int count, Object smallest,
+        Throwable cause, List<Object> examples, AsString<Object> toString) {
+    }
+
+    @Override
+    public void falsification(long seed, int count, Object smallest,
+        List<Object> examples, AsString<Object> toString) {
+    }
+
+    @Override
+    public void valuesExhausted(int completedExamples) {
+    }
+
+  }
+
+}
@@ -0,0 +1,124 @@
+package org.quicktheories.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.ExceptionReporter;
+import org.quicktheories.core.Gen;
+import org.quicktheories.core.NoGuidance;
+import org.quicktheories.core.Strategy;
+import org.quicktheories.generators.SourceDSL;
+
+/**
+ * Shrinks a falsifying list or string of up to 500 values to its known
+ * smallest value. Each invocation uses a new seed. Shrinking continues for the
+ * whole budget unless a stall limit is set.
+ *
+ * The cycles counter is the number of shrink cycles taken to first reach the
+ * smallest value, or the whole budget if it was not reached, and the minimised
+ * counter the number of invocations that reached it. Dividing either by the
+ * invocation count gives cycles per shrink and the proportion minimised.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShrinkToMinimumBenchmark {
+
+  private static final int SHRINK_CYCLES = 10000;
+
+  @Param({ "simple", "structured" })
+  public String shrink;
+
+  @Param({ "0" })
+  public int stallLimit;
+
+  private Supplier<ShrinkStrategy> shrinkStrategy;
+  private long seed;
+
+  private final Gen<List<Integer>> lists = SourceDSL.lists()
+      .of(SourceDSL.integers().between(0, 1000)).ofSizeBetween(0, 500);
+
+  private final Gen<String> strings = SourceDSL.strings().basicLatinAlphabet()
+      .ofLengthBetween(0, 500);
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long cycles;
+    public long minimised;
+    public long shrinks;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+      cycles = 0;
+      minimised = 0;
+      shrinks = 0;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    shrinkStrategy = "simple".equals(shrink) ? SimpleShrink::new
+        : StructuredShrink::new;
+  }
+
+  @Benchmark
+  public SearchResult<List<Integer>> lists(Counters counters) {
+    return shrinkToMinimum(counters, lists,
+        l -> l.stream().allMatch(i -> i < 500), Collections.singletonList(500));
+  }
+
+  @Benchmark
+  public SearchResult<String> strings(Counters counters) {
+    return shrinkToMinimum(counters, strings, s -> !s.contains("x"), "x");
+  }
+
+  private <T> SearchResult<T> shrinkToMinimum(Counters counters, Gen<T> gen,
+      Predicate<T> p, T smallest) {
+    seed = seed + 1;
+    Strategy strategy = new Strategy(Configuration.defaultPRNG(seed), 1000, 0,
+        SHRINK_CYCLES, 10, new ExceptionReporter(), prng -> new NoGuidance())
+            .withShrinkStrategy(shrinkStrategy).withShrinkStallLimit(stallLimit);
+    Core core = new Core(strategy);
+
+    long[] reachedAt = { SHRINK_CYCLES };
+    Property<T> prop = new Property<>(t -> {
+      boolean holds = p.test(t);
+      if (!holds && reachedAt[0] == SHRINK_CYCLES && t.equals(smallest)) {
+        reachedAt[0] = core.statistics().shrinkCyclesAttempted();
+      }
+      return holds;
+    }, gen);
+
+    SearchResult<T> result = core.run(prop, () -> 0);
+    if (result.isFalsified()) {
+      counters.shrinks++;
+      counters.cycles += reachedAt[0];
+      if (reachedAt[0] != SHRINK_CYCLES) {
+        counters.minimised++;
+      }
+    }
+    return result;
+  }
+
+}
@@ -1,5 +1,6 @@
 package org.quicktheories;
 
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -16,6 +17,7 @@ import org.quicktheories.dsl.TheoryBuilder;
 import org.quicktheories.dsl.TheoryBuilder2;
 import org.quicktheories.dsl.TheoryBuilder3;
 import org.quicktheories.dsl.TheoryBuilder4;
+import org.quicktheories.impl.ShrinkStrategy;
 
 /**
  * Entry point for property based testing.
@@ -145,7 +147,33 @@ public class QuickTheory {
   public QuickTheory withGenerateAttempts(int generateAttempts) {
     return new QuickTheory(() -> state.get().withGenerateAttempts(generateAttempts));
   }
-  
+
+  /**
+   * Sets the number of threads used to search for and shrink falsifying
+   * values. The property must be thread safe if a value greater than 1 is
+   * supplied.
+   *
+   * @param parallelism
+   *          number of threads to use
+   * @return a QuickTheory using the given parallelism
+   */
+  public QuickTheory withParallelism(int parallelism) {
+    return new QuickTheory(() -> state.get().withParallelism(parallelism));
+  }
+
+  /**
+   * Limits the memory used to remember which examples have been tried, so
+   * that long running tests use a constant amount of memory. Some examples may
+   * be wrongly skipped as duplicates when a limit is set.
+   *
+   * @param bytes
+   *          maximum number of bytes to use, or 0 for no limit
+   * @return a QuickTheory using the given deduplication memory
+   */
+  public QuickTheory withDeduplicationMemory(int bytes) {
+    return new QuickTheory(() -> state.get().withDeduplicationMemory(bytes));
+  }
+
   /**
    * Sets guidance approach to use
    * @param guidance Guidance approach
@@ -155,6 +183,78 @@ public class QuickTheory {
     return new QuickTheory(() -> state.get().withGuidance(guidance));
   }
 
+  /**
+   * Sets the approach used to shrink falsifying values
+   * @param shrinkStrategy supplier of the shrink strategy, called for each value shrunk
+   * @return a QuickTheory using the given shrink strategy
+   */
+  public QuickTheory withShrinkStrategy(Supplier<ShrinkStrategy> shrinkStrategy) {
+    return new QuickTheory(() -> state.get().withShrinkStrategy(shrinkStrategy));
+  }
+
+  /**
+   * Stops shrinking once the given number of consecutive shrink cycles have
+   * not found a smaller falsifying value
+   *
+   * @param cycles
+   *          number of unsuccessful cycles to allow, or 0 for no limit
+   * @return a QuickTheory using the given shrink stall limit
+   */
+  public QuickTheory withShrinkStallLimit(int cycles) {
+    return new QuickTheory(() -> state.get().withShrinkStallLimit(cycles));
+  }
+
+  /**
+   * Limits the time spent shrinking each falsifying value
+   *
+   * @param time
+   *          time to shrink for, or a value {@literal <= 0} for no limit
+   * @param timeUnit
+   *          unit of time
+   * @return a QuickTheory using the given shrink time
+   */
+  public QuickTheory withShrinkTime(long time, TimeUnit timeUnit) {
+    return new QuickTheory(() -> state.get().withShrinkTime(time, timeUnit));
+  }
+
+  /**
+   * Remembers the result of checking the property for recently shrunk values,
+   * so candidates that generate a value equal to one already checked do not
+   * check it again
+   *
+   * @param entries
+   *          number of results to remember, or 0 to check every candidate
+   * @return a QuickTheory using the given shrink cache size
+   */
+  public QuickTheory withShrinkCache(int entries) {
+    return new QuickTheory(() -> state.get().withShrinkCache(entries));
+  }
+
+  /**
+   * Checkpoints the smallest falsifying value found while shrinking to a file
+   *
+   * @param file
+   *          file to write the checkpoint to
+   * @return a QuickTheory that checkpoints shrinking to the given file
+   */
+  public QuickTheory withShrinkCheckpoint(Path file) {
+    return new QuickTheory(() -> state.get().withShrinkCheckpoint(file));
+  }
+
+  /**
+   * Continues shrinking from the value checkpointed to a file by an earlier
+   * run, checkpointing further progress to the same file. A falsifying value
+   * is searched for as normal if there is no checkpoint, or the value it holds
+   * no longer falsifies the property.
+   *
+   * @param file
+   *          checkpoint file to resume from
+   * @return a QuickTheory that resumes shrinking from the given file
+   */
+  public QuickTheory resumeShrinkFrom(Path file) {
+    return new QuickTheory(() -> state.get().resumeShrinkFrom(file));
+  }
+
   /**
    * Sets reporter to use
    * @param reporter Reporter to use
@@ -0,0 +1,119 @@
+package org.quicktheories.core;
+
+/**
+ * Draws values within a range from a generator's raw 64 bit output, so that
+ * generators differ only in how they produce the next long.
+ */
+abstract class AbstractPseudoRandom implements PseudoRandom {
+
+  private final long initialSeed;
+
+  // generators usually request the same range repeatedly, so the rejection
+  // threshold of the last bound is kept
+  private long lastBound;
+  private long lastThreshold;
+
+  AbstractPseudoRandom(long initialSeed) {
+    this.initialSeed = initialSeed;
+  }
+
+  /**
+   * Returns the next 64 bits of output
+   *
+   * @return a uniformly distributed long
+   */
+  public abstract long nextLong();
+
+  @Override
+  public long nextLong(long startInclusive,
+      long endInclusive) {
+    if (endInclusive < startInclusive) {
+      throw new IllegalArgumentException(String.format("Invalid range %d to %d", startInclusive, endInclusive));
+    }
+
+    // number of values in the range as an unsigned long, wrapping to 0 when
+    // every long is in range
+    final long range = endInclusive - startInclusive + 1;
+    if (range == 0) {
+      return nextLong();
+    }
+    if (range < 0) {
+      return startInclusive + nextBelowLargeBound(range);
+    }
+    return startInclusive + nextBelow(range);
+  }
+
+  /**
+   * Unbiased value below an unsigned bound using Lemire's multiply and shift -
+   * Fast Random Integer Generation in an Interval. The high half of the 128
+   * bit product of a random long and the bound is uniform once the rare
+   * products whose low half falls below 2^64 mod bound are rejected. The
+   * division to find that threshold is only needed when a rejection is
+   * possible, and then only once for a repeated bound.
+   */
+  private long nextBelow(long bound) {
+    long x = nextLong();
+    long low = x * bound;
+    if (Long.compareUnsigned(low, bound) < 0) {
+      final long threshold = thresholdFor(bound);
+      while (Long.compareUnsigned(low, threshold) < 0) {
+        x = nextLong();
+        low = x * bound;
+      }
+    }
+    return unsignedMultiplyHigh(x, bound);
+  }
+
+  /**
+   * Unbiased value below a bound of 2^63 or more. At least half of all longs
+   * lie below the bound, so rejecting raw values is cheaper than multiplying.
+   */
+  private long nextBelowLargeBound(long bound) {
+    long x = nextLong();
+    while (Long.compareUnsigned(x, bound) >= 0) {
+      x = nextLong();
+    }
+    return x;
+  }
+
+  private long thresholdFor(long bound) {
+    if (bound != lastBound) {
+      lastThreshold = twoToThe64Mod(bound);
+      lastBound = bound;
+    }
+    return lastThreshold;
+  }
+
+  /**
+   * 2^64 mod bound for an unsigned bound. Long.remainderUnsigned is avoided
+   * as it falls back to BigInteger on Java 8.
+   */
+  static long twoToThe64Mod(long bound) {
+    final long dividend = -bound;
+    // a bound of 2^63 or more fits into 2^64 at most twice
+    final long remainder = bound < 0 ? dividend
+        : dividend - (((dividend >>> 1) / bound) << 1) * bound;
+    return Long.compareUnsigned(remainder, bound) >= 0 ? remainder - bound
+        : remainder;
+  }
+
+  /**
+   * High 64 bits of the unsigned 128 bit product, as Math.multiplyHigh is not
+   * available on Java 8.
+   */
+  static long unsignedMultiplyHigh(long a, long b) {
+    final long a0 = a & 0xFFFFFFFFL;
+    final long a1 = a >>> 32;
+    final long b0 = b & 0xFFFFFFFFL;
+    final long b1 = b >>> 32;
+    final long t = (a1 * b0) + ((a0 * b0) >>> 32);
+    final long u = (t & 0xFFFFFFFFL) + (a0 * b1);
+    return (a1 * b1) + (t >>> 32) + (u >>> 32);
+  }
+
+  @Override
+  public long getInitialSeed() {
+    return initialSeed;
+  }
+
+}
@@ -2,6 +2,7 @@ package org.quicktheories.core;
 
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
@@ -14,6 +15,11 @@ public abstract class Configuration {
   private static final int DEFAULT_NO_ATTEMPTS = 10;
   private static final int DEFAULT_NO_EXAMPLES = 1000;
   private static final int DEFAULT_TESTING_TIME_MILLIS = -1;
+  private static final int DEFAULT_PARALLELISM = 1;
+  private static final int DEFAULT_DEDUPLICATION_MEMORY = 0;
+  private static final int DEFAULT_SHRINK_STALL_LIMIT = 0;
+  private static final long DEFAULT_SHRINK_TIME_MILLIS = -1;
+  private static final int DEFAULT_SHRINK_CACHE_SIZE = 0;
 
   public final static String PROFILE = "QT_PROFILE";
   public final static String SEED = "QT_SEED";
@@ -21,6 +27,11 @@ public abstract class Configuration {
   public final static String SHRINKS = "QT_SHRINKS";
   public final static String TESTING_TIME = "QT_TESTING_TIME";
   public final static String GENERATE_ATTEMPTS = "QT_ATTEMPTS";
+  public final static String PARALLELISM = "QT_PARALLELISM";
+  public final static String DEDUPLICATION_MEMORY = "QT_DEDUP_MEMORY";
+  public final static String SHRINK_STALL_LIMIT = "QT_SHRINK_STALL_LIMIT";
+  public final static String SHRINK_TIME = "QT_SHRINK_TIME";
+  public final static String SHRINK_CACHE = "QT_SHRINK_CACHE";
 
   /**
    * Returns the initial profile to use for a {@link org.quicktheories.QuickTheory} taking into account
@@ -56,7 +67,37 @@ public abstract class Configuration {
    */
   public static Strategy systemStrategy() {
     return new Strategy(defaultPRNG(pickSeed()), pickExamples(), pickTestingTimeMillis(), pickShrinks(), pickAttempts(),
-        new ExceptionReporter(), pickGuidance());
+        new ExceptionReporter(), pickGuidance())
+        .withParallelism(pickParallelism())
+        .withDeduplicationMemory(pickDeduplicationMemory())
+        .withShrinkStallLimit(pickShrinkStallLimit())
+        .withShrinkTime(pickShrinkTimeMillis(), TimeUnit.MILLISECONDS)
+        .withShrinkCache(pickShrinkCacheSize());
+  }
+
+  private static int pickShrinkStallLimit() {
+    Optional<String> userValue = Optional.ofNullable(System.getProperty(SHRINK_STALL_LIMIT));
+    return userValue.map(Integer::valueOf).orElseGet(() -> DEFAULT_SHRINK_STALL_LIMIT);
+  }
+
+  private static long pickShrinkTimeMillis() {
+    Optional<String> userValue = Optional.ofNullable(System.getProperty(SHRINK_TIME));
+    return userValue.map(Long::valueOf).orElseGet(() -> DEFAULT_SHRINK_TIME_MILLIS);
+  }
+
+  private static int pickShrinkCacheSize() {
+    Optional<String> userValue = Optional.ofNullable(System.getProperty(SHRINK_CACHE));
+    return userValue.map(Integer::valueOf).orElseGet(() -> DEFAULT_SHRINK_CACHE_SIZE);
+  }
+
+  private static int pickDeduplicationMemory() {
+    Optional<String> userValue = Optional.ofNullable(System.getProperty(DEDUPLICATION_MEMORY));
+    return userValue.map(Integer::valueOf).orElseGet(() -> DEFAULT_DEDUPLICATION_MEMORY);
+  }
+
+  private static int pickParallelism() {
+    Optional<String> userValue = Optional.ofNullable(System.getProperty(PARALLELISM));
+    return userValue.map(Integer::valueOf).orElseGet(() -> DEFAULT_PARALLELISM);
   }
 
   private static int pickAttempts() {
@@ -106,6 +147,18 @@ public abstract class Configuration {
     return new XOrShiftPRNG(seed);
   }
 
+  /**
+   * Returns a PRNG with initial seed supplied that can provide independent
+   * streams of values, one for each thread of a parallel run.
+   *
+   * @param seed
+   *          initial seed of the PseudoRandom generator.
+   * @return a SplittablePseudoRandom
+   */
+  public static SplittablePseudoRandom splittablePRNG(long seed) {
+    return new Xoshiro256StarStarPRNG(seed);
+  }
+
   public static <T> Class<T> ensureLoaded(Class<T> klass) {
     try {
       Class.forName(klass.getName(), true, klass.getClassLoader());
@@ -12,5 +12,20 @@ public interface RandomnessSource {
   DetatchedRandomnessSource detach();
   
   void registerFailedAssumption();
+
+  /**
+   * Marks the start of a span of values that together make up one logical
+   * value, such as an element of a collection. Spans may be nested, and must
+   * be ended by {@link #endSpan()}. Shrinking uses spans to remove or copy
+   * whole values without changing the values drawn after them.
+   */
+  default void startSpan() {
+  }
+
+  /**
+   * Marks the end of the span most recently started
+   */
+  default void endSpan() {
+  }
  
 }
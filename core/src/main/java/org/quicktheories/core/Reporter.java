@@ -56,4 +56,14 @@ public interface Reporter {
    */
   void valuesExhausted(int completedExamples);
 
+  /**
+   * Reports statistics describing a run. Called once per property, before any
+   * falsification or exhaustion is reported. Does nothing by default.
+   * 
+   * @param statistics
+   *          statistics for the run
+   */
+  default void statistics(RunStatistics statistics) {
+  }
+
 }
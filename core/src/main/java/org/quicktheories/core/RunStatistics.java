@@ -0,0 +1,127 @@
+package org.quicktheories.core;
+
+/**
+ * Statistics describing where the time and examples of a single property
+ * run were spent.
+ */
+public interface RunStatistics {
+
+  /**
+   * Returns the number of examples the property was run against while
+   * searching for a falsifying value
+   *
+   * @return number of examples
+   */
+  int examples();
+
+  /**
+   * Returns the number of generated examples that were not run as they
+   * duplicated an example already tried
+   *
+   * @return number of duplicate examples
+   */
+  int duplicatesSkipped();
+
+  /**
+   * Returns an estimate of how many of the skipped examples had not in fact
+   * been tried. Always 0 unless the deduplication memory is limited. Shrink
+   * candidates are not included.
+   *
+   * @return estimated number of examples wrongly skipped
+   */
+  double estimatedFalseSkips();
+
+  /**
+   * Returns the number of generated values rejected by assumptions while
+   * searching and shrinking
+   *
+   * @return number of failed assumptions
+   */
+  long failedAssumptions();
+
+  /**
+   * Returns time spent generating examples (including rejected and duplicate
+   * examples) while searching. Estimated from a sample of the examples.
+   *
+   * @return time in nanoseconds
+   */
+  long generationNanos();
+
+  /**
+   * Returns time spent running the property while searching. Estimated from a
+   * sample of the examples.
+   *
+   * @return time in nanoseconds
+   */
+  long propertyNanos();
+
+  /**
+   * Returns time spent shrinking a falsifying value
+   *
+   * @return time in nanoseconds
+   */
+  long shrinkNanos();
+
+  /**
+   * Returns the elapsed time of the run. When searching in parallel this may
+   * be less than the sum of the other times.
+   *
+   * @return time in nanoseconds
+   */
+  long totalNanos();
+
+  /**
+   * Returns the number of shrink candidates generated
+   *
+   * @return number of shrink cycles
+   */
+  int shrinkCyclesAttempted();
+
+  /**
+   * Returns the number of shrink candidates that falsified the property and
+   * were adopted as the new smallest value
+   *
+   * @return number of accepted shrinks
+   */
+  int shrinkCyclesAccepted();
+
+  /**
+   * Returns the number of shrink candidates that were not checked as they
+   * duplicated an example or candidate already tried
+   *
+   * @return number of duplicate shrink candidates
+   */
+  int shrinkDuplicatesSkipped();
+
+  /**
+   * Returns the number of shrink candidates whose result was taken from the
+   * shrink cache rather than by checking the property again
+   *
+   * @return number of cached results used
+   */
+  int shrinkResultsReused();
+
+  /**
+   * Returns a histogram of the number of values drawn to generate each
+   * example run while searching. Index 0 counts examples drawing no values,
+   * and index n counts those drawing between 2^(n-1) and 2^n - 1 values.
+   *
+   * @return counts of examples by number of values drawn
+   */
+  long[] precursorLengthHistogram();
+
+  /**
+   * Returns the number of examples run per second of elapsed time spent
+   * searching for a falsifying value
+   *
+   * @return examples per second
+   */
+  default double examplesPerSecond() {
+    long nanos = totalNanos() - shrinkNanos();
+    if (nanos <= 0) {
+      return 0;
+    }
+    return examples() * 1_000_000_000d / nanos;
+  }
+
+}
@@ -0,0 +1,22 @@
+package org.quicktheories.core;
+
+/**
+ * A PseudoRandom that can provide any number of independent streams of values,
+ * each of which is reproducible from the same initial seed. Intended to give
+ * each thread of a parallel run its own generator.
+ */
+public interface SplittablePseudoRandom extends PseudoRandom {
+
+  /**
+   * Returns a new generator for the stream with the given index. Each call
+   * with the same index returns a generator producing the same values,
+   * regardless of any values already drawn from this instance. The returned
+   * generator reports the same initial seed as this one.
+   *
+   * @param index
+   *          index of the stream, 0 or greater
+   * @return a generator for the stream
+   */
+  SplittablePseudoRandom stream(int index);
+
+}
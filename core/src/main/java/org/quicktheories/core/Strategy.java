@@ -1,7 +1,13 @@
 package org.quicktheories.core;
 
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.quicktheories.impl.ShrinkStrategy;
+import org.quicktheories.impl.SimpleShrink;
 
 /**
  * Describes the components that make up the QuickTheory: random generator,
@@ -16,6 +22,14 @@ public class Strategy {
   private final int shrinkCycles;
   private final Reporter reporter;
   private final Function<PseudoRandom, Guidance> guidance;
+  private final int parallelism;
+  private final int deduplicationMemory;
+  private final Supplier<ShrinkStrategy> shrinkStrategy;
+  private final int shrinkStallLimit;
+  private final long shrinkTimeMillis;
+  private final int shrinkCacheSize;
+  private final Path shrinkCheckpoint;
+  private final boolean resumeShrink;
 
   /**
    * The strategy used in a QuickTheory
@@ -39,6 +53,14 @@ public class Strategy {
    */
   public Strategy(final PseudoRandom prng, final int examples, final long testingTimeMillis,
       final int shrinkCycles, final int generateAttempts, Reporter reporter, Function<PseudoRandom, Guidance> guidance) {
+    this(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, 1, 0, SimpleShrink::new, 0, -1, 0, null, false);
+  }
+
+  private Strategy(final PseudoRandom prng, final int examples, final long testingTimeMillis,
+      final int shrinkCycles, final int generateAttempts, Reporter reporter, Function<PseudoRandom, Guidance> guidance,
+      final int parallelism, final int deduplicationMemory, Supplier<ShrinkStrategy> shrinkStrategy,
+      final int shrinkStallLimit, final long shrinkTimeMillis, final int shrinkCacheSize,
+      final Path shrinkCheckpoint, final boolean resumeShrink) {
     this.prng = prng;
     this.examples = examples;
     this.testingTimeMillis = testingTimeMillis;
@@ -46,6 +68,14 @@ public class Strategy {
     this.reporter = reporter;
     this.generateAttempts = generateAttempts;
     this.guidance = guidance;
+    this.parallelism = parallelism;
+    this.deduplicationMemory = deduplicationMemory;
+    this.shrinkStrategy = shrinkStrategy;
+    this.shrinkStallLimit = shrinkStallLimit;
+    this.shrinkTimeMillis = shrinkTimeMillis;
+    this.shrinkCacheSize = shrinkCacheSize;
+    this.shrinkCheckpoint = shrinkCheckpoint;
+    this.resumeShrink = resumeShrink;
   }
 
   /**
@@ -100,6 +130,85 @@ public class Strategy {
   public Guidance guidance() {
     return guidance.apply(prng());
   }
+
+  /**
+   * Returns the number of threads used to search for and shrink falsifying values
+   * 
+   * @return number of threads
+   */
+  public int parallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Returns a new instance of the approach used to shrink falsifying values
+   * 
+   * @return a ShrinkStrategy
+   */
+  public ShrinkStrategy shrinkStrategy() {
+    return this.shrinkStrategy.get();
+  }
+
+  /**
+   * Returns the number of consecutive shrink cycles that may fail to find a
+   * smaller value before shrinking stops. 0 if there is no limit.
+   * 
+   * @return maximum number of consecutive unsuccessful shrink cycles
+   */
+  public int shrinkStallLimit() {
+    return this.shrinkStallLimit;
+  }
+
+  /**
+   * Returns the number of milliseconds to spend shrinking a falsifying value.
+   * A value {@literal <= 0} if there is no limit.
+   * 
+   * @return milliseconds to shrink for
+   */
+  public long shrinkTimeMillis() {
+    return this.shrinkTimeMillis;
+  }
+
+  /**
+   * Returns the number of property results remembered while shrinking. 0 if
+   * no results are remembered.
+   * 
+   * @return number of results remembered
+   */
+  public int shrinkCacheSize() {
+    return this.shrinkCacheSize;
+  }
+
+  /**
+   * Returns the file the smallest falsifying value found while shrinking is
+   * checkpointed to, if any
+   * 
+   * @return checkpoint file
+   */
+  public Optional<Path> shrinkCheckpoint() {
+    return Optional.ofNullable(this.shrinkCheckpoint);
+  }
+
+  /**
+   * Returns true if shrinking should resume from the value in the shrink
+   * checkpoint file, when there is one, rather than search for a new
+   * falsifying value
+   * 
+   * @return true if shrinking is resumed from the checkpoint
+   */
+  public boolean resumeShrink() {
+    return this.resumeShrink;
+  }
+
+  /**
+   * Returns the number of bytes available to record visited examples. 0 if
+   * every example is recorded.
+   * 
+   * @return bytes available to record examples
+   */
+  public int deduplicationMemory() {
+    return this.deduplicationMemory;
+  }
   
   /**
    * Creates a strategy with a fixed seed
@@ -111,7 +220,20 @@ public class Strategy {
    */
   public Strategy withFixedSeed(long seed) {
     return new Strategy(defaultPRNG(seed), examples, testingTimeMillis, shrinkCycles, generateAttempts,
-        reporter, guidance);
+        reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy using the supplied PseudoRandom. The seed it reports is
+   * the one reported on falsification.
+   * 
+   * @param prng
+   *          PseudoRandom used to generate random values
+   * @return a strategy using the supplied PseudoRandom
+   */
+  public Strategy withPRNG(PseudoRandom prng) {
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts,
+        reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
 
   /**
@@ -123,7 +245,7 @@ public class Strategy {
    * @return a strategy with the maximum number of examples as supplied
    */
   public Strategy withExamples(int examples) {
-    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
 
   /**
@@ -145,7 +267,7 @@ public class Strategy {
    * @return a strategy with the testing time set to the amount of time given.
    */
   public Strategy withTestingTime(long time, TimeUnit timeUnit) {
-    return new Strategy(prng, examples, timeUnit.toMillis(time), shrinkCycles, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, timeUnit.toMillis(time), shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
 
   /**
@@ -164,7 +286,7 @@ public class Strategy {
    * @return a strategy
    */
   public Strategy withGenerateAttempts(int generateAttempts) {
-    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
   
   /**
@@ -173,7 +295,7 @@ public class Strategy {
    * @return a strategy
    */
   public Strategy withGuidance(Function<PseudoRandom, Guidance> guidance) {
-    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
 
   /**
@@ -184,7 +306,7 @@ public class Strategy {
    * @return a strategy with the maximum number of shrinks as supplied
    */
   public Strategy withShrinkCycles(int shrinks) {
-    return new Strategy(prng, examples, testingTimeMillis, shrinks, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, testingTimeMillis, shrinks, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
   }
   
   /**
@@ -193,7 +315,160 @@ public class Strategy {
    * @return a strategy with suppled reporter
    */
   public Strategy withReporter(Reporter reporter) {
-    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance);
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that searches for falsifying values using the supplied
+   * number of threads. The examples are divided between the threads, each of
+   * which draws values from its own independent stream of the initial seed, so a
+   * falsification can still be reproduced from the reported seed provided the
+   * same parallelism is used.
+   * 
+   * Once a falsifying value is found, each shrink cycle evaluates a batch of
+   * candidates concurrently and the smallest falsifying candidate is kept.
+   * 
+   * The property under test will be called concurrently so must be thread
+   * safe. Guidance follows a single sequence of examples, so when a guidance
+   * approach other than {@link NoGuidance} is in use the search runs on the
+   * calling thread and only shrinking is done in parallel.
+   * 
+   * @param parallelism
+   *          number of threads to use. 1 searches on the calling thread.
+   * @return a strategy with the parallelism supplied
+   */
+  public Strategy withParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1 but was " + parallelism);
+    }
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that limits the memory used to remember which examples
+   * have already been tried. By default every example is remembered exactly,
+   * which for long runs with unlimited examples grows without bound.
+   * 
+   * When a limit is set examples are remembered approximately in a fixed
+   * amount of memory and the oldest are forgotten in bulk as it fills. An
+   * example may occasionally be skipped as a duplicate when it has not in fact
+   * been tried. When searching in parallel the memory is divided between the
+   * threads.
+   * 
+   * @param bytes
+   *          maximum number of bytes to use, or 0 to remember every example
+   * @return a strategy with the deduplication memory supplied
+   */
+  public Strategy withDeduplicationMemory(int bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Deduplication memory must not be negative but was " + bytes);
+    }
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, bytes, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that shrinks falsifying values using the supplied
+   * approach. By default values are shrunk by {@link SimpleShrink}, which makes
+   * random steps towards each value's shrink target.
+   * {@link org.quicktheories.impl.StructuredShrink} instead runs deterministic
+   * passes that delete and simplify values, which usually reaches the
+   * smallest value in far fewer shrink cycles.
+   * 
+   * A new instance is created for each value shrunk, so shrink strategies may
+   * hold state.
+   * 
+   * @param shrinkStrategy
+   *          supplier of the shrink strategy to use
+   * @return a strategy with the shrink strategy supplied
+   */
+  public Strategy withShrinkStrategy(Supplier<ShrinkStrategy> shrinkStrategy) {
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that stops shrinking once the supplied number of
+   * consecutive shrink cycles have failed to find a smaller falsifying value
+   * (unless the value passed to {@link #withShrinkCycles(int)} is reached
+   * first).
+   * 
+   * @param cycles
+   *          the number of unsuccessful cycles to allow. Pass 0 to rely solely
+   *          on {@link #withShrinkCycles(int)}
+   * @return a strategy with the shrink stall limit supplied
+   */
+  public Strategy withShrinkStallLimit(int cycles) {
+    if (cycles < 0) {
+      throw new IllegalArgumentException("Shrink stall limit must not be negative but was " + cycles);
+    }
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, cycles, shrinkTimeMillis, shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy which will shrink each falsifying value for at most the
+   * amount of time given (unless the value passed to
+   * {@link #withShrinkCycles(int)} is reached first)
+   *
+   * @param time the amount of time to shrink for. Pass a value {@literal <= 0} to rely solely on {@link #withShrinkCycles(int)}
+   * @param timeUnit the time unit for the given time
+   * @return a strategy with the shrink time set to the amount of time given.
+   */
+  public Strategy withShrinkTime(long time, TimeUnit timeUnit) {
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, timeUnit.toMillis(time), shrinkCacheSize, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that remembers the result of checking the property for
+   * up to the supplied number of values while shrinking. Different shrink
+   * candidates often generate equal values, for example when a value outside
+   * a generator's range is clamped back into it, and a remembered result is
+   * reused rather than the property being checked again. This is worthwhile
+   * when the property is slow to check.
+   * 
+   * Values are compared using equals and hashCode, and the least recently
+   * used results are forgotten once the limit is reached. Values must not be
+   * modified by the property.
+   * 
+   * @param entries
+   *          number of results to remember, or 0 to check every candidate
+   * @return a strategy with the shrink cache size supplied
+   */
+  public Strategy withShrinkCache(int entries) {
+    if (entries < 0) {
+      throw new IllegalArgumentException("Shrink cache size must not be negative but was " + entries);
+    }
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, entries, shrinkCheckpoint, resumeShrink);
+  }
+
+  /**
+   * Creates a strategy that checkpoints the smallest falsifying value found
+   * while shrinking to the supplied file. The checkpoint is written when
+   * shrinking starts, at most once a second while it makes progress, and when
+   * it ends.
+   * 
+   * @param file
+   *          file to write the checkpoint to
+   * @return a strategy that checkpoints shrinking to the file supplied
+   * @see #resumeShrinkFrom(Path)
+   */
+  public Strategy withShrinkCheckpoint(Path file) {
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, file, false);
+  }
+
+  /**
+   * Creates a strategy that continues shrinking from the value checkpointed
+   * to the supplied file by an earlier run, so that shrinking a value that is
+   * slow to check can be spread over several runs. Progress continues to be
+   * checkpointed to the same file.
+   * 
+   * If the file does not exist, or the value it holds no longer falsifies the
+   * property, a falsifying value is searched for as normal.
+   * 
+   * @param file
+   *          checkpoint file to resume from
+   * @return a strategy that resumes shrinking from the file supplied
+   */
+  public Strategy resumeShrinkFrom(Path file) {
+    return new Strategy(prng, examples, testingTimeMillis, shrinkCycles, generateAttempts, reporter, guidance, parallelism, deduplicationMemory, shrinkStrategy, shrinkStallLimit, shrinkTimeMillis, shrinkCacheSize, file, true);
   }
 
   /**
@@ -0,0 +1,108 @@
+package org.quicktheories.core;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * xoshiro256** generator - Blackman and Vigna, Scrambled Linear Pseudorandom
+ * Number Generators.
+ *
+ * The 256 bits of state are filled from the seed using SplitMix64, as the
+ * authors recommend. Streams are separated by jumping the initial state ahead
+ * 2^128 values per stream index, so streams cannot overlap unless more than
+ * 2^128 values are drawn from one of them.
+ */
+@NotThreadSafe
+final class Xoshiro256StarStarPRNG extends AbstractPseudoRandom
+    implements SplittablePseudoRandom {
+
+  private static final long[] JUMP = { 0x180ec6d33cfd0abaL,
+      0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL };
+
+  private final long[] initialState;
+
+  private long s0;
+  private long s1;
+  private long s2;
+  private long s3;
+
+  Xoshiro256StarStarPRNG(long seed) {
+    this(seed, seededState(seed));
+  }
+
+  private Xoshiro256StarStarPRNG(long seed, long[] state) {
+    super(seed);
+    this.initialState = state;
+    this.s0 = state[0];
+    this.s1 = state[1];
+    this.s2 = state[2];
+    this.s3 = state[3];
+  }
+
+  @Override
+  public long nextLong() {
+    final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+    final long t = s1 << 17;
+    s2 ^= s0;
+    s3 ^= s1;
+    s1 ^= s2;
+    s0 ^= s3;
+    s2 ^= t;
+    s3 = Long.rotateLeft(s3, 45);
+    return result;
+  }
+
+  @Override
+  public Xoshiro256StarStarPRNG stream(int index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Stream index must not be negative but was " + index);
+    }
+    Xoshiro256StarStarPRNG stream = new Xoshiro256StarStarPRNG(getInitialSeed(), initialState);
+    for (int i = 0; i != index; i++) {
+      stream.jump();
+    }
+    return new Xoshiro256StarStarPRNG(getInitialSeed(),
+        new long[] { stream.s0, stream.s1, stream.s2, stream.s3 });
+  }
+
+  /**
+   * Advances the generator by 2^128 values
+   */
+  void jump() {
+    long j0 = 0;
+    long j1 = 0;
+    long j2 = 0;
+    long j3 = 0;
+    for (long each : JUMP) {
+      for (int b = 0; b != 64; b++) {
+        if ((each & (1L << b)) != 0) {
+          j0 ^= s0;
+          j1 ^= s1;
+          j2 ^= s2;
+          j3 ^= s3;
+        }
+        nextLong();
+      }
+    }
+    s0 = j0;
+    s1 = j1;
+    s2 = j2;
+    s3 = j3;
+  }
+
+  private static long[] seededState(long seed) {
+    long[] state = new long[4];
+    long z = seed;
+    for (int i = 0; i != state.length; i++) {
+      z = z + 0x9E3779B97F4A7C15L;
+      state[i] = splitMix(z);
+    }
+    return state;
+  }
+
+  private static long splitMix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+}
@@ -353,11 +353,15 @@ public class Generate {
    */
   public static Gen<int[]> intArrays(Gen<Integer> sizes, Gen<Integer> contents) {
     Gen<int[]> gen = td -> {
+      td.startSpan();
       int size = sizes.generate(td);
       int[] is = new int[size];
       for (int i = 0; i != size; i++) {
+        td.startSpan();
         is[i] = contents.generate(td);
+        td.endSpan();
       }
+      td.endSpan();
       return is;
     };
     return gen.describedAs(Arrays::toString);
@@ -395,11 +399,15 @@ public class Generate {
    */
   public static Gen<byte[]> byteArrays(Gen<Integer> sizes, Gen<Byte> contents) {
     Gen<byte[]> gen = td -> {
+      td.startSpan();
       int size = sizes.generate(td);
       byte[] bs = new byte[size];
       for (int i = 0; i != size; i++) {
+        td.startSpan();
         bs[i] = contents.generate(td);
+        td.endSpan();
       }
+      td.endSpan();
       return bs;
     };
     return gen.describedAs(Arrays::toString);
@@ -42,11 +42,20 @@ public final class Lists {
       Gen<T> values, Collector<T, List<T>, List<T>> collector, Gen<Integer> sizes) {
    
     Gen<List<T>> gen = prng -> {
+      // the list and each element are marked as spans so that shrinking can
+      // remove elements along with lowering the size
+      prng.startSpan();
       int size = sizes.generate(prng);
-      return Stream.generate( () -> values.generate(prng))
+      List<T> list = Stream.generate( () -> {
+            prng.startSpan();
+            T t = values.generate(prng);
+            prng.endSpan();
+            return t;
+          })
           .limit(size)
           .collect(collector);
-
+      prng.endSpan();
+      return list;
     };
     return gen.describedAs(listDescriber(values::asString));
     
@@ -3,12 +3,15 @@ package org.quicktheories.generators;
 import org.quicktheories.api.AsString;
 import org.quicktheories.core.Gen;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class Maps {
   static <K, V> Gen<Map<K, V>> boundedMapsOf(Gen<K> kg, Gen<V> vg,
@@ -23,13 +26,23 @@ public class Maps {
   static <K, V> Gen<Map<K, V>> mapsOf(Gen<K> kg, Gen<V> vg,
       Collector<Map.Entry<K, V>, ?, Map<K, V>> collector, Gen<Integer> sizes) {
     Gen<Map<K, V>> gen = prng -> {
+      // the map and each entry are marked as spans so that shrinking can
+      // remove entries along with lowering the size. Duplicate keys are
+      // discarded.
+      prng.startSpan();
       int size = sizes.generate(prng);
-      return Stream.generate(() -> kg.generate(prng))
-          .distinct()
-          .map(k -> mapEntry(k, vg.generate(prng)))
-          .limit(size)
-          .collect(collector);
-
+      Set<K> keys = new HashSet<>();
+      List<Map.Entry<K, V>> entries = new ArrayList<>();
+      while (entries.size() < size) {
+        prng.startSpan();
+        K k = kg.generate(prng);
+        if (keys.add(k)) {
+          entries.add(mapEntry(k, vg.generate(prng)));
+        }
+        prng.endSpan();
+      }
+      prng.endSpan();
+      return entries.stream().collect(collector);
     };
     return gen.describedAs(mapDescriber(kg::asString, vg::asString));
   }
@@ -17,11 +17,23 @@ class BoundarySkewedDistribution<T> implements Distribution<T> {
   
   private final Gen<T> gen;
   private final Strategy config;
+  private final ShapedDataSource source;
   
   
   BoundarySkewedDistribution(Strategy config, Gen<T> gen) {
+    this(config, gen, new ShapedDataSource(config.prng(),
+        ShapedDataSource.NO_FORCED_VALUES, config.generateAttempts()));
+  }
+
+  /**
+   * Generates values using the supplied source, so precursors are only valid
+   * until the source is next used.
+   */
+  BoundarySkewedDistribution(Strategy config, Gen<T> gen,
+      ShapedDataSource source) {
     this.gen = gen;
     this.config = config;
+    this.source = source;
     toVisit = findBoundaries(config, gen);   
   }
 
@@ -30,21 +42,19 @@ class BoundarySkewedDistribution<T> implements Distribution<T> {
     if (!toVisit.isEmpty()) {
       forced = toVisit.pop();
     } else {
-      forced = new long[0];
+      forced = ShapedDataSource.NO_FORCED_VALUES;
     }
     return generate(gen, config, forced);
   }
   
   private PrecursorDataPair<T> generate(Gen<T> gen, Strategy config, long[] forced) {
-    ShapedDataSource buffer = new ShapedDataSource(config.prng(), forced, config.generateAttempts());
-    T t = gen.generate(buffer);
-    return new PrecursorDataPair<>(buffer.capturedPrecursor(), buffer.failedAssumptions(), t);
+    return source.generate(gen, forced, config.generateAttempts());
   }
      
 
   private ArrayDeque<long[]> findBoundaries(Strategy config, Gen<T> gen) {
     ArrayDeque<long[]> ordered = new ArrayDeque<>(); 
-    PrecursorDataPair<T> startPoint = generate(gen, config, new long[0]);  
+    PrecursorDataPair<T> startPoint = generate(gen, config, ShapedDataSource.NO_FORCED_VALUES);  
     ordered.add(startPoint.precursor().shrinkTarget());
     ordered.add(startPoint.precursor().minLimit());
     ordered.add(startPoint.precursor().maxLimit());   
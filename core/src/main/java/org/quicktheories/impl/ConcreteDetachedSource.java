@@ -34,6 +34,16 @@ public class ConcreteDetachedSource implements DetatchedRandomnessSource, Extend
     parent.registerFailedAssumption();
   }
 
+  @Override
+  public void startSpan() {
+    precursor.startSpan();
+  }
+
+  @Override
+  public void endSpan() {
+    precursor.endSpan();
+  }
+
   @Override
   public long tryNext(Constraint constraints) {
     return parent.tryNext(constraints);
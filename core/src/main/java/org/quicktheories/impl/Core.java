@@ -3,81 +3,153 @@ package org.quicktheories.impl;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
-import java.util.zip.CRC32;
 
 import org.quicktheories.api.Pair;
 import org.quicktheories.core.Gen;
 import org.quicktheories.core.Guidance;
+import org.quicktheories.core.NoGuidance;
 import org.quicktheories.core.Strategy;
 
 
 class Core {
 
+  // clock is read for 1 in 16 examples
+  private static final int TIMING_SAMPLE_MASK = 15;
+
   private final Strategy      config;
-  private int                 examplesUsed           = 0;
+  private final IntPredicate  abandonBefore;
   private Optional<Throwable> smallestFoundThrowable = Optional.empty();
   
-  private final Set<Long> visitedValues = new HashSet<>();
+  private final VisitedValues visitedValues;
+  private final Statistics    stats;
+
+  // reused for every example and shrink candidate
+  private final ShapedDataSource source;
 
   Core(Strategy config) {
+    this(config, i -> false);
+  }
+
+  Core(Strategy config, IntPredicate abandonBefore) {
     this.config = config;
+    this.abandonBefore = abandonBefore;
+    this.visitedValues = VisitedValues
+        .forMemoryLimit(config.deduplicationMemory());
+    this.stats = new Statistics(visitedValues);
+    this.source = new ShapedDataSource(config.prng(),
+        ShapedDataSource.NO_FORCED_VALUES, config.generateAttempts());
   }
 
   <T> SearchResult<T> run(Property<T> prop, LongSupplier clock) {
     List<T> falsifyingValues = new ArrayList<>();
     boolean exhausted = false;
+    long start = System.nanoTime();
     try {
-      Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> falisfying = findFalsifyingValue(
-          prop, clock);
+      Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> falisfying = resumeFromCheckpoint(
+          prop);
+      if (!falisfying.isPresent()) {
+        falisfying = findFalsifyingValue(prop, clock);
+      }
       if (falisfying.isPresent()) {
         smallestFoundThrowable = falisfying.get()._1.cause();
         falsifyingValues.add(falisfying.get()._1.value());
-        falsifyingValues.addAll(shrink(falisfying.get()._2, prop));
+        long shrinkStart = System.nanoTime();
+        falsifyingValues.addAll(shrink(falisfying.get()._2, prop, clock));
+        stats.shrinkTime(System.nanoTime() - shrinkStart);
       }
       Collections.reverse(falsifyingValues);
     } catch (AttemptsExhaustedException ex) {
       exhausted = true;
     }
-    return new SearchResult<>(exhausted, examplesUsed, falsifyingValues,
-        smallestFoundThrowable);
+    stats.totalTime(System.nanoTime() - start);
+    return new SearchResult<>(exhausted, examplesUsed(), falsifyingValues,
+        smallestFoundThrowable, stats);
+  }
+
+  /**
+   * Regenerates the value checkpointed by an earlier run, returning it if it
+   * still falsifies the property
+   */
+  private <T> Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> resumeFromCheckpoint(
+      Property<T> prop) {
+    if (!config.resumeShrink()) {
+      return Optional.empty();
+    }
+    Optional<Precursor> checkpoint = config.shrinkCheckpoint()
+        .flatMap(ShrinkCheckpoint::read);
+    if (!checkpoint.isPresent()) {
+      return Optional.empty();
+    }
+
+    try {
+      PrecursorDataPair<T> t = generate(prop.getGen(),
+          checkpoint.get().current(), config.generateAttempts());
+      stats.generated(t.failedAssumptions());
+      visitedValues.add(t.precursor().hash());
+      stats.executed(t.precursor().size());
+      return prop.tryFalsification(t.value())
+          .map(f -> Pair.of(f, t.retain()));
+    } catch (AttemptsExhaustedException ex) {
+      // the generator has changed since the checkpoint was written
+      return Optional.empty();
+    }
   }
 
   <T> Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> findFalsifyingValue(
       Property<T> prop, LongSupplier clock) {
-    
     Guidance guidance = config.guidance();
+    // guidance is not shared between threads, so guided runs search on this one
+    if (config.parallelism() > 1 && guidance instanceof NoGuidance) {
+      return new ParallelSearch(config, stats).findFalsifyingValue(prop, clock);
+    }
     
-    Distribution<T> randomDistribution =  new BoundarySkewedDistribution<>(config, prop.getGen()); 
+    Distribution<T> randomDistribution =  new BoundarySkewedDistribution<>(config, prop.getGen(), source); 
     ArrayDeque<long[]> toVisit = new ArrayDeque<>();
 
-    Distribution<T> distribution;
-
     long endTime = clock.getAsLong() + config.testingTimeMillis();
     for (int i = 0; i != config.examples(); i++) {
+      if (abandonBefore.test(i)) {
+        break;
+      }
+
+      boolean timed = (i & TIMING_SAMPLE_MASK) == 0;
+      long generationStart = timed ? System.nanoTime() : 0;
+      final PrecursorDataPair<T> t;
       if (toVisit.isEmpty()) {
-        distribution = randomDistribution;
+        t = randomDistribution.generate();
       } else {
-        distribution = new ForcedDistribution<>(config, prop.getGen(), toVisit.pop());
+        t = generate(prop.getGen(), toVisit.pop(), config.generateAttempts());
       }
-      
-      PrecursorDataPair<T> t = distribution.generate();
+      stats.generated(t.failedAssumptions());
+      if (timed) {
+        stats.generationTimed(System.nanoTime() - generationStart);
+      }
+
       if (checkHash(t)) {
         continue;
       }  
       
-      examplesUsed = examplesUsed + 1;
       guidance.newExample(t.precursor());
       
+      long propertyStart = timed ? System.nanoTime() : 0;
       Optional<Falsification<T>> falsification = prop.tryFalsification(t.value());
+      if (timed) {
+        stats.executionTimed(System.nanoTime() - propertyStart);
+      }
+      stats.executed(t.precursor().size());
       guidance.exampleExecuted();
 
       if (falsification.isPresent()) {
-        return falsification.map(f -> Pair.of(f, t));
+        return falsification.map(f -> Pair.of(f, t.retain()));
       } else {
         toVisit.addAll(guidance.suggestValues(i,t.precursor()));
       }
@@ -93,69 +165,274 @@ class Core {
   }
 
 
-  <T> List<T> shrink(PrecursorDataPair<T> precursor, Property<T> prop) {
+  <T> List<T> shrink(PrecursorDataPair<T> precursor, Property<T> prop,
+      LongSupplier clock) {
+    stats.searchFinished();
+    if (config.parallelism() > 1) {
+      return shrinkInParallel(precursor, prop, clock);
+    }
+
     PrecursorDataPair<T> lastSmallestState = precursor;
     List<T> falsifyingValues = new ArrayList<>();
 
-    ShrinkStrategy shrink = new SimpleShrink();
+    ShrinkStrategy shrink = config.shrinkStrategy();
+    ShrinkResultCache<T> cache = new ShrinkResultCache<>(
+        config.shrinkCacheSize());
+    ShrinkCheckpoint checkpoint = checkpointFor(precursor, clock);
+    long endTime = clock.getAsLong() + config.shrinkTimeMillis();
+    int stalled = 0;
     try {
       for (int i = 0; i != config.shrinkCycles(); i++) {
         
-        if (lastSmallestState.precursor().isEmpty()) {
+        if (lastSmallestState.precursor().isEmpty()
+            || shrinkBudgetSpent(stalled, clock, endTime)) {
           break;
         }
+        stalled = stalled + 1;
         
         long[] shrunk = shrink.shrink(config.prng(),lastSmallestState.precursor());
         
         PrecursorDataPair<T> t = generate(prop.getGen(), shrunk,
             config.generateAttempts());
+        stats.shrinkAttempted(t.failedAssumptions());
         
-        if (checkHash(t) || t.failedAssumptions() > lastSmallestState.failedAssumptions()) {
+        if (isShrinkDuplicate(t) || t.failedAssumptions() > lastSmallestState.failedAssumptions()
+            || !shrink.accepts(t.precursor(), lastSmallestState.precursor())) {
+          shrink.accepted(-1);
           continue;
         }
 
-        Optional<Falsification<T>> maybeFalisfied = prop
-            .tryFalsification(t.value());
+        Optional<Falsification<T>> maybeFalisfied;
+        if (cache.contains(t.value())) {
+          stats.shrinkResultReused();
+          maybeFalisfied = cache.get(t.value());
+        } else {
+          maybeFalisfied = prop.tryFalsification(t.value());
+          cache.put(t.value(), maybeFalisfied);
+        }
         if (maybeFalisfied.isPresent()) {    
-          lastSmallestState = t;
+          stats.shrinkAccepted();
+          lastSmallestState = t.retain();
           falsifyingValues.add(t.value());
           smallestFoundThrowable = maybeFalisfied.get().cause();
-        } 
+          stalled = 0;
+          checkpoint.improved(lastSmallestState.precursor(), clock);
+          shrink.accepted(0);
+        } else {
+          shrink.accepted(-1);
+        }
       }
     } catch (AttemptsExhaustedException ex) {
       // swallow - if we got as far as shrinking we were unlucky to run out of
       // values now, but we might have found some results earlier
+    } finally {
+      checkpoint.finish(clock);
     }
 
     return falsifyingValues;
 
   }
 
-  private <T> boolean checkHash(PrecursorDataPair<T> t) {
-    long hash = generateHash(t);
-    if (visitedValues.contains(hash)) {
+  /**
+   * Speculatively evaluates a batch of shrink candidates per round, one per
+   * thread, adopting the smallest that falsifies the property. Candidates are
+   * generated on the calling thread so the values tried depend only on the
+   * seed. Each candidate counts as one shrink cycle.
+   */
+  private <T> List<T> shrinkInParallel(PrecursorDataPair<T> precursor,
+      Property<T> prop, LongSupplier clock) {
+    PrecursorDataPair<T> lastSmallestState = precursor;
+    List<T> falsifyingValues = new ArrayList<>();
+
+    ShrinkStrategy shrink = config.shrinkStrategy();
+    ShrinkResultCache<T> cache = new ShrinkResultCache<>(
+        config.shrinkCacheSize());
+    ShrinkCheckpoint checkpoint = checkpointFor(precursor, clock);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        config.parallelism(), new DaemonThreads("quicktheories-shrink"));
+    long endTime = clock.getAsLong() + config.shrinkTimeMillis();
+    int stalled = 0;
+    try {
+      int cycles = 0;
+      while (cycles != config.shrinkCycles()
+          && !lastSmallestState.precursor().isEmpty()
+          && !shrinkBudgetSpent(stalled, clock, endTime)) {
+
+        List<PrecursorDataPair<T>> batch = new ArrayList<>();
+        // index of each candidate among those the strategy returned
+        int[] returned = new int[config.parallelism()];
+        for (int i = 0; i != config.parallelism()
+            && cycles != config.shrinkCycles(); i++) {
+          cycles = cycles + 1;
+          stalled = stalled + 1;
+          long[] shrunk = shrink.shrink(config.prng(),
+              lastSmallestState.precursor());
+          PrecursorDataPair<T> t = generate(prop.getGen(), shrunk,
+              config.generateAttempts());
+          stats.shrinkAttempted(t.failedAssumptions());
+          if (isShrinkDuplicate(t)
+              || t.failedAssumptions() > lastSmallestState.failedAssumptions()
+              || !shrink.accepts(t.precursor(), lastSmallestState.precursor())) {
+            continue;
+          }
+          returned[batch.size()] = i;
+          batch.add(t.retain());
+        }
+
+        List<Optional<Falsification<T>>> results = evaluate(executor, batch,
+            prop, cache);
+
+        int smallest = -1;
+        for (int i = 0; i != batch.size(); i++) {
+          if (results.get(i).isPresent() && (smallest == -1 || compareSize(
+              batch.get(i).precursor(), batch.get(smallest).precursor()) < 0)) {
+            smallest = i;
+          }
+        }
+
+        if (smallest != -1) {
+          for (int i = 0; i != batch.size(); i++) {
+            if (i != smallest && results.get(i).isPresent()) {
+              falsifyingValues.add(batch.get(i).value());
+            }
+          }
+          stats.shrinkAccepted();
+          lastSmallestState = batch.get(smallest);
+          falsifyingValues.add(lastSmallestState.value());
+          smallestFoundThrowable = results.get(smallest).get().cause();
+          stalled = 0;
+          checkpoint.improved(lastSmallestState.precursor(), clock);
+        }
+        shrink.accepted(smallest == -1 ? -1 : returned[smallest]);
+      }
+    } catch (AttemptsExhaustedException ex) {
+      // swallow - as for sequential shrinking
+    } finally {
+      executor.shutdownNow();
+      checkpoint.finish(clock);
+    }
+
+    return falsifyingValues;
+  }
+
+  private <T> ShrinkCheckpoint checkpointFor(PrecursorDataPair<T> precursor,
+      LongSupplier clock) {
+    ShrinkCheckpoint checkpoint = new ShrinkCheckpoint(
+        config.shrinkCheckpoint());
+    checkpoint.start(precursor.precursor(), clock);
+    return checkpoint;
+  }
+
+  /**
+   * Returns true if shrinking should stop because too many consecutive cycles
+   * have failed to find a smaller value, or the time allowed has passed.
+   */
+  private boolean shrinkBudgetSpent(int stalled, LongSupplier clock,
+      long endTime) {
+    if (config.shrinkStallLimit() > 0 && stalled >= config.shrinkStallLimit()) {
       return true;
     }
-    visitedValues.add(hash);
-    return false;
-   }
+    return config.shrinkTimeMillis() > 0 && clock.getAsLong() > endTime;
+  }
 
-  
-  private <T> long generateHash(PrecursorDataPair<T> t) {   
-    // CRC gives fairly good performance thanks to optimised code in JVM
-    // but a higher collision rate than alternatives like murmer3 - using mainly
-    // so we don't need to include a hash implementation
-    CRC32 crc = new CRC32();
-    crc.update(t.precursor().bytes());
-    return crc.getValue();
+  /**
+   * Checks each candidate of a batch concurrently, other than those whose
+   * result is already cached. The cache is only used from the calling thread.
+   */
+  private <T> List<Optional<Falsification<T>>> evaluate(
+      ExecutorService executor, List<PrecursorDataPair<T>> batch,
+      Property<T> prop, ShrinkResultCache<T> cache) {
+    List<Callable<Optional<Falsification<T>>>> tasks = new ArrayList<>(
+        batch.size());
+    boolean[] cached = new boolean[batch.size()];
+    for (int i = 0; i != batch.size(); i++) {
+      T value = batch.get(i).value();
+      cached[i] = cache.contains(value);
+      if (cached[i]) {
+        stats.shrinkResultReused();
+      } else {
+        tasks.add(() -> prop.tryFalsification(value));
+      }
+    }
+
+    List<Optional<Falsification<T>>> results = new ArrayList<>(batch.size());
+    try {
+      List<Future<Optional<Falsification<T>>>> futures = executor
+          .invokeAll(tasks);
+      int next = 0;
+      for (int i = 0; i != batch.size(); i++) {
+        T value = batch.get(i).value();
+        if (cached[i]) {
+          results.add(cache.get(value));
+        } else {
+          Optional<Falsification<T>> result = futures.get(next).get();
+          next = next + 1;
+          results.add(result);
+          cache.put(value, result);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while shrinking", e);
+    } catch (ExecutionException e) {
+      // tryFalsification catches all throwables so should not happen
+      throw new RuntimeException("Error while shrinking", e.getCause());
+    }
+    return results;
+  }
+
+  /**
+   * Orders precursors by length, then by the distance of each value from its
+   * shrink target.
+   */
+  static int compareSize(Precursor a, Precursor b) {
+    if (a.size() != b.size()) {
+      return Integer.compare(a.size(), b.size());
+    }
+
+    for (int i = 0; i != a.size(); i++) {
+      int c = Long.compareUnsigned(distance(a.get(i), a.target(i)),
+          distance(b.get(i), b.target(i)));
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  private static long distance(long value, long target) {
+    // values and targets share a constraint so the difference always fits in
+    // an unsigned long
+    return value >= target ? value - target : target - value;
+  }
+
+  int examplesUsed() {
+    return stats.examples();
+  }
+
+  Statistics statistics() {
+    return stats;
+  }
+
+  private <T> boolean checkHash(PrecursorDataPair<T> t) {
+    if (visitedValues.add(t.precursor().hash())) {
+      return false;
+    }
+    stats.duplicateSkipped();
+    return true;
+  }
+
+  private <T> boolean isShrinkDuplicate(PrecursorDataPair<T> t) {
+    if (visitedValues.add(t.precursor().hash())) {
+      return false;
+    }
+    stats.shrinkDuplicateSkipped();
+    return true;
   }
 
   private <T> PrecursorDataPair<T> generate(Gen<T> gen, long[] forced,
       int maxTries) {
-    ShapedDataSource buffer = new ShapedDataSource(config.prng(), forced,
-        maxTries);
-    T t = gen.generate(buffer);
-    return new PrecursorDataPair<>(buffer.capturedPrecursor(), buffer.failedAssumptions(), t);
+    return source.generate(gen, forced, maxTries);
   }
 
 }
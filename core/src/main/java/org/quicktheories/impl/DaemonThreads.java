@@ -0,0 +1,24 @@
+package org.quicktheories.impl;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates daemon threads so worker pools cannot keep the JVM alive if a run is
+ * abandoned.
+ */
+final class DaemonThreads implements ThreadFactory {
+
+  private final String name;
+
+  DaemonThreads(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Thread newThread(Runnable r) {
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+}
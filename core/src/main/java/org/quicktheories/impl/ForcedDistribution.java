@@ -6,8 +6,9 @@ import org.quicktheories.core.Gen;
 import org.quicktheories.core.Strategy;
 
 /**
- * Visits (in order) any likely shrink target, minima and maxima before switching to a
- * random distribution.
+ * Visits the forced values before switching to a random distribution. Values
+ * are generated using a single source, so precursors are only valid until the
+ * next value is generated.
  *
  * @param <T>
  */
@@ -17,11 +18,14 @@ class ForcedDistribution<T> implements Distribution<T> {
   
   private final Gen<T> gen;
   private final Strategy config;
+  private final ShapedDataSource source;
   
   
   ForcedDistribution(Strategy config, Gen<T> gen, long[] forced) {
     this.gen = gen;
     this.config = config;
+    this.source = new ShapedDataSource(config.prng(),
+        ShapedDataSource.NO_FORCED_VALUES, config.generateAttempts());
     toVisit.add(forced);  
   }
 
@@ -30,16 +34,9 @@ class ForcedDistribution<T> implements Distribution<T> {
     if (!toVisit.isEmpty()) {
       forced = toVisit.pop();
     } else {
-      forced = new long[0];
+      forced = ShapedDataSource.NO_FORCED_VALUES;
     }
-    return generate(gen, forced, config.generateAttempts());
-  }
-  
-  private PrecursorDataPair<T> generate(Gen<T> gen, long[] forced, int maxTries) {
-    ShapedDataSource buffer = new ShapedDataSource(config.prng(), forced,
-        maxTries);
-    T t = gen.generate(buffer);
-    return new PrecursorDataPair<>(buffer.capturedPrecursor(), buffer.failedAssumptions(), t);
+    return source.generate(gen, forced, config.generateAttempts());
   }
     
 }
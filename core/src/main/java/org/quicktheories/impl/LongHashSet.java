@@ -0,0 +1,115 @@
+package org.quicktheories.impl;
+
+/**
+ * Open addressing set of primitive longs.
+ *
+ * Avoids boxing each hash into a Long and the per entry node allocation of a
+ * HashSet. Zero is used to mark empty slots, so is tracked separately.
+ */
+final class LongHashSet implements VisitedValues {
+
+  private static final int   INITIAL_CAPACITY = 1024;
+  private static final float LOAD_FACTOR      = 0.5f;
+
+  private long[]  slots;
+  private int     mask;
+  private int     size;
+  private int     resizeAt;
+  private boolean containsZero;
+
+  LongHashSet() {
+    this(INITIAL_CAPACITY);
+  }
+
+  LongHashSet(int expectedSize) {
+    int capacity = Integer.highestOneBit(
+        Math.max(expectedSize, 2) * 2 - 1) << 1;
+    allocate(capacity);
+  }
+
+  /**
+   * Adds the value to the set
+   *
+   * @param value
+   *          value to add
+   * @return true if the value was not already present
+   */
+  @Override
+  public boolean add(long value) {
+    if (value == 0) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size = size + 1;
+      return true;
+    }
+
+    int slot = slotFor(value);
+    while (slots[slot] != 0) {
+      if (slots[slot] == value) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    slots[slot] = value;
+    size = size + 1;
+    if (size > resizeAt) {
+      grow();
+    }
+    return true;
+  }
+
+  boolean contains(long value) {
+    if (value == 0) {
+      return containsZero;
+    }
+
+    int slot = slotFor(value);
+    while (slots[slot] != 0) {
+      if (slots[slot] == value) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  int size() {
+    return size;
+  }
+
+  @Override
+  public double estimatedFalseSkips() {
+    return 0;
+  }
+
+  private int slotFor(long value) {
+    // values are usually already hashes, but low bits are mixed in case they
+    // are not
+    long h = value * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void grow() {
+    long[] old = slots;
+    allocate(old.length * 2);
+    for (long each : old) {
+      if (each != 0) {
+        int slot = slotFor(each);
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = each;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    slots = new long[capacity];
+    mask = capacity - 1;
+    resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+}
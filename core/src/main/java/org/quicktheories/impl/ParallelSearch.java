@@ -0,0 +1,173 @@
+package org.quicktheories.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+
+import org.quicktheories.api.Pair;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.SplittablePseudoRandom;
+import org.quicktheories.core.Strategy;
+
+/**
+ * Searches for a falsifying value using several threads.
+ *
+ * The example budget is divided between the workers, each of which draws from
+ * its own independent stream of the initial seed. Examples are given an ordinal
+ * that interleaves the workers, and a worker abandons its search once it
+ * passes the lowest ordinal that has ended the search so far. The result is
+ * therefore the same as if the ordinals had been visited in sequence,
+ * regardless of how the threads are scheduled.
+ */
+class ParallelSearch {
+
+  private final Strategy               config;
+  private final int                    workers;
+  private final Statistics             stats;
+  private final SplittablePseudoRandom streams;
+  private final AtomicLong             lowestEnding = new AtomicLong(Long.MAX_VALUE);
+
+  /**
+   * @param stats
+   *          statistics into which those of the workers will be merged
+   */
+  ParallelSearch(Strategy config, Statistics stats) {
+    this.config = config;
+    this.workers = config.parallelism();
+    this.stats = stats;
+    this.streams = Configuration
+        .splittablePRNG(config.prng().getInitialSeed());
+  }
+
+  <T> Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> findFalsifyingValue(
+      Property<T> prop, LongSupplier clock) {
+    ExecutorService executor = Executors.newFixedThreadPool(workers,
+        new DaemonThreads("quicktheories-search"));
+
+    try {
+      List<Worker<T>> ws = new ArrayList<>(workers);
+      List<Future<?>> futures = new ArrayList<>(workers);
+      for (int i = 0; i != workers; i++) {
+        Worker<T> w = new Worker<>(i, prop, clock);
+        ws.add(w);
+        futures.add(executor.submit(w));
+      }
+      waitForCompletion(futures);
+      return pickLowest(ws);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private <T> Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> pickLowest(
+      List<Worker<T>> ws) {
+    Worker<T> lowest = null;
+    for (Worker<T> each : ws) {
+      stats.merge(each.core.statistics());
+      if (each.endedAt != -1
+          && (lowest == null || each.endedAt < lowest.endedAt)) {
+        lowest = each;
+      }
+    }
+
+    if (lowest == null) {
+      return Optional.empty();
+    }
+
+    if (lowest.error != null) {
+      throw lowest.error;
+    }
+    return lowest.falsification;
+  }
+
+  private void waitForCompletion(List<Future<?>> futures) {
+    for (Future<?> each : futures) {
+      try {
+        each.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while searching", e);
+      } catch (ExecutionException e) {
+        // runtime exceptions are captured by the workers
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new RuntimeException("Error while searching", e.getCause());
+      }
+    }
+  }
+
+  private int examplesFor(int worker) {
+    int examples = config.examples();
+    if (examples < 0) {
+      return examples;
+    }
+    return (examples / workers) + (worker < (examples % workers) ? 1 : 0);
+  }
+
+  private int deduplicationMemoryFor() {
+    int bytes = config.deduplicationMemory();
+    if (bytes == 0) {
+      return 0;
+    }
+    return Math.max(1, bytes / workers);
+  }
+
+  private final class Worker<T> implements Runnable, IntPredicate {
+
+    private final int              id;
+    private final Property<T>      prop;
+    private final LongSupplier     clock;
+    private final Core             core;
+
+    private long                   current;
+    private long                   endedAt = -1;
+    private Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> falsification = Optional.empty();
+    private RuntimeException       error;
+
+    Worker(int id, Property<T> prop, LongSupplier clock) {
+      this.id = id;
+      this.current = id;
+      this.prop = prop;
+      this.clock = clock;
+      Strategy workerConfig = config.withPRNG(streams.stream(id))
+          .withExamples(examplesFor(id))
+          .withDeduplicationMemory(deduplicationMemoryFor())
+          .withParallelism(1);
+      this.core = new Core(workerConfig, this);
+    }
+
+    @Override
+    public void run() {
+      try {
+        falsification = core.findFalsifyingValue(prop, clock);
+        if (falsification.isPresent()) {
+          end();
+        }
+      } catch (RuntimeException ex) {
+        error = ex;
+        end();
+      }
+    }
+
+    @Override
+    public boolean test(int example) {
+      current = ((long) example * workers) + id;
+      return current > lowestEnding.get();
+    }
+
+    private void end() {
+      endedAt = current;
+      lowestEnding.accumulateAndGet(current, Math::min);
+    }
+
+  }
+
+}
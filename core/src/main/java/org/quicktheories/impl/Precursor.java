@@ -1,110 +1,296 @@
 package org.quicktheories.impl;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.OptionalLong;
 
+/**
+ * The values drawn to generate an example, along with the constraints they
+ * were drawn under and any spans of values marked as making up one logical
+ * value.
+ *
+ * Values are held in a primitive array, alongside an array of the (usually
+ * shared) constraints, both of which grow as needed so storing a value does
+ * not allocate. Methods returning arrays return copies, the indexed accessors
+ * and copyInto can be used to read values without allocating.
+ */
 public final class Precursor {
-  
-  private static final int INITIAL_SIZE = 32;
-  
-  private ByteBuffer buffer;
-  private final List<Constraint> constraints;
-  
+
+  private static final int INITIAL_SIZE = 4;
+
+  private long[]       values;
+  private Constraint[] constraints;
+  private int          size;
+
+  // completed spans, in the order they were ended
+  private int[]        spanStarts = new int[0];
+  private int[]        spanEnds   = new int[0];
+  private int          spanCount;
+
+  // starts of spans not yet ended
+  private int[]        openSpans  = new int[0];
+  private int          openSpanCount;
+
   public Precursor() {
-    this.buffer = ByteBuffer.allocate(INITIAL_SIZE);
-    this.constraints = new ArrayList<>();
+    this.values = new long[INITIAL_SIZE];
+    this.constraints = new Constraint[INITIAL_SIZE];
   }
-  
+
   public boolean isEmpty() {
-    return buffer.position() == 0;
+    return size == 0;
+  }
+
+  /**
+   * Returns the number of values stored
+   *
+   * @return number of values
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the stored value at the given index
+   *
+   * @param index
+   *          index of value
+   * @return the value
+   */
+  public long get(int index) {
+    return values[index];
+  }
+
+  /**
+   * Copies the stored values into the supplied array, which must be at least
+   * {@link #size()} long
+   *
+   * @param dest
+   *          array to copy into
+   * @return the supplied array
+   */
+  public long[] copyInto(long[] dest) {
+    System.arraycopy(values, 0, dest, 0, size);
+    return dest;
+  }
+
+  /**
+   * Returns true if the stored values are equal to those in the given array
+   *
+   * @param other
+   *          values to compare with
+   * @return true if the values are equal
+   */
+  public boolean valuesEqual(long[] other) {
+    if (other.length != size) {
+      return false;
+    }
+    for (int i = 0; i != size; i++) {
+      if (values[i] != other[i]) {
+        return false;
+      }
+    }
+    return true;
   }
-  
+
   public byte[] bytes() {
-    return Arrays.copyOf(buffer.array(),buffer.position());
+    ByteBuffer buffer = ByteBuffer.allocate(size * Long.BYTES);
+    buffer.asLongBuffer().put(values, 0, size);
+    return buffer.array();
   }
-    
+
+  /**
+   * 64 bit hash of the stored values, calculated directly from the backing
+   * array without copying it.
+   *
+   * @return hash of the values
+   */
+  public long hash() {
+    // xxHash64 style rounds - 64 bits keeps collisions between the hundreds of
+    // thousands of values visited by long runs negligible
+    long h = 0x27D4EB2F165667C5L + (size * Long.BYTES);
+    for (int i = 0; i != size; i++) {
+      long k = values[i] * 0xC2B2AE3D27D4EB4FL;
+      k = Long.rotateLeft(k, 31) * 0x9E3779B185EBCA87L;
+      h = Long.rotateLeft(h ^ k, 27) * 0x9E3779B185EBCA87L + 0x85EBCA77C2B2AE63L;
+    }
+    h = (h ^ (h >>> 33)) * 0xC2B2AE3D27D4EB4FL;
+    h = (h ^ (h >>> 29)) * 0x165667B19E3779F9L;
+    return h ^ (h >>> 32);
+  }
+
   void store(long l, Constraint constraint) {
-    addToBuffer(l);
-    storeConstraints(constraint);
+    ensureCapacity(size + 1);
+    values[size] = l;
+    constraints[size] = constraint;
+    size = size + 1;
+  }
+
+  /**
+   * Returns a copy of this precursor that is unaffected by changes to it
+   *
+   * @return a copy
+   */
+  public Precursor copy() {
+    Precursor copy = new Precursor();
+    copy.combine(this);
+    return copy;
+  }
+
+  void clear() {
+    size = 0;
+    spanCount = 0;
+    openSpanCount = 0;
+  }
+
+  /**
+   * Marks the start of a span of values making up one logical value
+   */
+  void startSpan() {
+    if (openSpanCount == openSpans.length) {
+      openSpans = Arrays.copyOf(openSpans,
+          Math.max(INITIAL_SIZE, openSpanCount * 2));
+    }
+    openSpans[openSpanCount] = size;
+    openSpanCount = openSpanCount + 1;
   }
-  
+
+  /**
+   * Marks the end of the most recently started span. Spans containing no
+   * values are not recorded.
+   */
+  void endSpan() {
+    if (openSpanCount == 0) {
+      return;
+    }
+    openSpanCount = openSpanCount - 1;
+    int start = openSpans[openSpanCount];
+    if (start != size) {
+      addSpan(start, size);
+    }
+  }
+
+  /**
+   * Returns the number of spans recorded
+   *
+   * @return number of spans
+   */
+  public int spanCount() {
+    return spanCount;
+  }
+
+  /**
+   * Returns the index of the first value in a span
+   *
+   * @param span
+   *          index of span, spans being ordered by when they ended
+   * @return index of first value
+   */
+  public int spanStart(int span) {
+    return spanStarts[span];
+  }
+
+  /**
+   * Returns the index after the last value in a span
+   *
+   * @param span
+   *          index of span, spans being ordered by when they ended
+   * @return index after last value
+   */
+  public int spanEnd(int span) {
+    return spanEnds[span];
+  }
+
   public long[] current() {
-    long[] out = longArraySizedForBuffer();
-    ByteBuffer view = buffer.duplicate();
-    view.position(0);
-    view.asLongBuffer().get(out);
-    return out;
+    return Arrays.copyOf(values, size);
   }
 
-  
   public long[] maxLimit() {
-    long[] max = longArraySizedForBuffer();
-    for (int i = 0; i != constraints.size(); i++) {
-      max[i] = constraints.get(i).max();
+    long[] max = new long[size];
+    for (int i = 0; i != size; i++) {
+      max[i] = max(i);
     }
     return max;
   }
 
   public long[] minLimit() {
-    long[] max = longArraySizedForBuffer();
-    for (int i = 0; i != constraints.size(); i++) {
-      max[i] = constraints.get(i).min();
+    long[] min = new long[size];
+    for (int i = 0; i != size; i++) {
+      min[i] = min(i);
     }
-    return max;
+    return min;
   }
 
   public long[] shrinkTarget() {
-    long[] max = longArraySizedForBuffer();
-    for (int i = 0; i != constraints.size(); i++) {
-      max[i] = constraints.get(i).shrinkTarget().orElse(constraints.get(i).min());
+    long[] targets = new long[size];
+    for (int i = 0; i != size; i++) {
+      targets[i] = target(i);
     }
-    return max;
-  }  
-  
+    return targets;
+  }
+
   public OptionalLong shrinkTarget(int index) {
-    return constraints.get(index).shrinkTarget();
+    return constraints[index].shrinkTarget();
   }
-  
-  public  long min(int index) {
-    return constraints.get(index).min();
+
+  /**
+   * Returns true if the value at the given index has a shrink target
+   *
+   * @param index
+   *          index of value
+   * @return true if there is a shrink target
+   */
+  public boolean hasShrinkTarget(int index) {
+    return constraints[index].shrinkTarget().isPresent();
   }
-  
-  public long max(int index) {
-    return constraints.get(index).max();
+
+  /**
+   * Returns the shrink target of the value at the given index, or its minimum
+   * if it has no shrink target
+   *
+   * @param index
+   *          index of value
+   * @return shrink target
+   */
+  public long target(int index) {
+    Constraint c = constraints[index];
+    return c.shrinkTarget().orElse(c.min());
   }
-  
-  
-  private long[] longArraySizedForBuffer() {
-    return new long[buffer.position() / Long.BYTES];
+
+  public long min(int index) {
+    return constraints[index].min();
   }
-  
-  private void addToBuffer(long l) {
-    checkBufferSize(Long.BYTES);
-    buffer.putLong(l);
+
+  public long max(int index) {
+    return constraints[index].max();
   }
 
+  public void combine(Precursor other) {
+    ensureCapacity(size + other.size);
+    System.arraycopy(other.values, 0, values, size, other.size);
+    System.arraycopy(other.constraints, 0, constraints, size, other.size);
+    for (int i = 0; i != other.spanCount; i++) {
+      addSpan(size + other.spanStarts[i], size + other.spanEnds[i]);
+    }
+    size = size + other.size;
+  }
 
-  private void storeConstraints(Constraint constraints) {
-    this.constraints.add(constraints);
+  private void addSpan(int start, int end) {
+    if (spanCount == spanStarts.length) {
+      int capacity = Math.max(INITIAL_SIZE, spanCount * 2);
+      spanStarts = Arrays.copyOf(spanStarts, capacity);
+      spanEnds = Arrays.copyOf(spanEnds, capacity);
+    }
+    spanStarts[spanCount] = start;
+    spanEnds[spanCount] = end;
+    spanCount = spanCount + 1;
   }
 
-  public void combine(Precursor other) {
-    byte[] bs = other.bytes();
-    checkBufferSize(bs.length);
-    buffer.put(bs, 0, bs.length);
-    constraints.addAll(other.constraints);  
-  }
-
-  private void checkBufferSize(int required) {
-    if (buffer.remaining() < required) {
-      int growStep = buffer.capacity()  * 2;
-      ByteBuffer tmp =  ByteBuffer.allocate(buffer.capacity() + Math.max(required,growStep));
-      tmp.put(bytes());
-      buffer = tmp;
+  private void ensureCapacity(int required) {
+    if (required > values.length) {
+      int capacity = Math.max(required, values.length * 2);
+      values = Arrays.copyOf(values, capacity);
+      constraints = Arrays.copyOf(constraints, capacity);
     }
   }
-  
+
 }
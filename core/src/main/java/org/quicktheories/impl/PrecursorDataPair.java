@@ -23,4 +23,12 @@ class PrecursorDataPair<T> {
     return failedAssumptions;
   }
 
+  /**
+   * Returns a pair whose precursor will not be overwritten when the source
+   * that generated it is reused
+   */
+  PrecursorDataPair<T> retain() {
+    return new PrecursorDataPair<>(precursor.copy(), failedAssumptions, value);
+  }
+
 }
@@ -3,25 +3,26 @@ package org.quicktheories.impl;
 import org.quicktheories.core.Gen;
 import org.quicktheories.core.Strategy;
 
+/**
+ * Generates values using a single source, so precursors are only valid until
+ * the next value is generated.
+ */
 class RandomDistribution<T>  implements Distribution<T> {
 
   private final Gen<T> gen;
   private final Strategy config;
+  private final ShapedDataSource source;
   
   RandomDistribution(Strategy config, Gen<T> gen) {
     this.gen = gen;
     this.config = config;
+    this.source = new ShapedDataSource(config.prng(),
+        ShapedDataSource.NO_FORCED_VALUES, config.generateAttempts());
   }
 
   public PrecursorDataPair<T> generate() {
-    return generate(gen,  config.generateAttempts());
-  }
-  
-  private PrecursorDataPair<T> generate(Gen<T> gen, int maxTries) {
-    ShapedDataSource buffer = new ShapedDataSource(config.prng(), new long[0],
-        maxTries);
-    T t = gen.generate(buffer);
-    return new PrecursorDataPair<>(buffer.capturedPrecursor(), buffer.failedAssumptions(), t);
+    return source.generate(gen, ShapedDataSource.NO_FORCED_VALUES,
+        config.generateAttempts());
   }
   
 }
@@ -0,0 +1,189 @@
+package org.quicktheories.impl;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size, approximate record of visited values for long running searches.
+ *
+ * Values are held in two blocked bloom filters, each confining the bits for a
+ * value to a single 512 bit block. New values are added to the active filter
+ * and looked up in both. Once the active filter holds as many values as it
+ * was sized for, the older filter is cleared and takes its place, so the
+ * oldest values are forgotten in bulk rather than letting the false positive
+ * rate climb.
+ *
+ * A false positive causes an unseen example to be skipped, so an estimate of
+ * how often this happened is kept. It is derived from the number of bits set
+ * in each block, as the load on individual blocks varies too much for the
+ * usual estimate based on the number of entries to be accurate. Only values
+ * reported as present contribute, each weighted by the chance that it was a
+ * false positive rather than a real duplicate.
+ */
+final class RotatingBloomFilter implements VisitedValues {
+
+  private static final int BLOCK_WORDS     = 8;
+  private static final int BLOCK_MASK      = (BLOCK_WORDS * 64) - 1;
+  private static final int HASHES          = 8;
+  private static final int BITS_PER_ENTRY  = 16;
+
+  /**
+   * Probability that a value is reported as present in a block with the
+   * indexed number of bits set
+   */
+  private static final double[] FALSE_POSITIVE_BY_BITS = falsePositiveTable();
+
+  private final int        blocks;
+  private final int        capacity;
+
+  private long[]           active;
+  private long[]           older;
+  private int              activeCount;
+  private double           activeFalsePositives;
+  private double           olderFalsePositives;
+  private double           estimatedFalseSkips;
+  private long             added;
+  private long             found;
+
+  RotatingBloomFilter(int maxBytes) {
+    int words = Math.max(BLOCK_WORDS,
+        ((maxBytes / 8) / 2 / BLOCK_WORDS) * BLOCK_WORDS);
+    this.blocks = words / BLOCK_WORDS;
+    this.capacity = capacityFor(words);
+    this.active = new long[words];
+    this.older = new long[words];
+  }
+
+  @Override
+  public boolean add(long hash) {
+    // 7 positions are taken from the first hash, the last position and the
+    // block from the second
+    long h = mix(hash);
+    long g = mix(h + 0x9E3779B97F4A7C15L);
+    int block = blockFor(g);
+    if (contains(active, block, h, g) || contains(older, block, h, g)) {
+      found = found + 1;
+      estimatedFalseSkips = estimatedFalseSkips + chanceFoundWasFalse();
+      return false;
+    }
+
+    activeFalsePositives = activeFalsePositives + set(active, block, h, g);
+    activeCount = activeCount + 1;
+    added = added + 1;
+    if (activeCount >= capacity) {
+      rotate();
+    }
+    return true;
+  }
+
+  @Override
+  public double estimatedFalseSkips() {
+    return estimatedFalseSkips;
+  }
+
+  /**
+   * Probability that a value not yet added would be reported as present
+   */
+  double falsePositiveProbability() {
+    double a = activeFalsePositives / blocks;
+    double b = olderFalsePositives / blocks;
+    return 1 - ((1 - a) * (1 - b));
+  }
+
+  /**
+   * Probability that a value just reported as present had not been added.
+   * New values are added with probability 1 - p, so p / (1 - p) are expected
+   * to have been falsely found for each one added, out of all those found.
+   */
+  private double chanceFoundWasFalse() {
+    double p = falsePositiveProbability();
+    if (p >= 1) {
+      return 1;
+    }
+    return Math.min(1, ((added * p) / (1 - p)) / found);
+  }
+
+  /**
+   * Number of values a filter of the given number of words is sized for,
+   * computed in long as the number of bits overflows an int for limits of
+   * 512 MiB or more
+   */
+  static int capacityFor(int words) {
+    return (int) Math.min(Integer.MAX_VALUE,
+        (words * 64L) / BITS_PER_ENTRY);
+  }
+
+  int sizeInBytes() {
+    return (active.length + older.length) * 8;
+  }
+
+  private void rotate() {
+    long[] reused = older;
+    Arrays.fill(reused, 0);
+    older = active;
+    olderFalsePositives = activeFalsePositives;
+    active = reused;
+    activeCount = 0;
+    activeFalsePositives = 0;
+  }
+
+  private boolean contains(long[] words, int block, long h, long g) {
+    for (int i = 0; i != HASHES; i++) {
+      int bit = bit(h, g, i);
+      if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the bits for the hash, returning the resulting change in the false
+   * positive probability of its block
+   */
+  private double set(long[] words, int block, long h, long g) {
+    int before = bitsSet(words, block);
+    for (int i = 0; i != HASHES; i++) {
+      int bit = bit(h, g, i);
+      words[block + (bit >>> 6)] |= 1L << bit;
+    }
+    return FALSE_POSITIVE_BY_BITS[bitsSet(words, block)]
+        - FALSE_POSITIVE_BY_BITS[before];
+  }
+
+  private static int bitsSet(long[] words, int block) {
+    int count = 0;
+    for (int i = block; i != block + BLOCK_WORDS; i++) {
+      count = count + Long.bitCount(words[i]);
+    }
+    return count;
+  }
+
+  private int blockFor(long g) {
+    // maps the high bits onto the range of blocks without division
+    return (int) (((g >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+  }
+
+  private static int bit(long h, long g, int i) {
+    if (i == HASHES - 1) {
+      return (int) g & BLOCK_MASK;
+    }
+    return (int) (h >>> (9 * i)) & BLOCK_MASK;
+  }
+
+  private static double[] falsePositiveTable() {
+    // positions are drawn independently, so may repeat
+    int bits = BLOCK_MASK + 1;
+    double[] table = new double[bits + 1];
+    for (int set = 0; set <= bits; set++) {
+      table[set] = Math.pow((double) set / bits, HASHES);
+    }
+    return table;
+  }
+
+  private static long mix(long h) {
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+}
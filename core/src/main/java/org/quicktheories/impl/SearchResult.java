@@ -4,18 +4,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.quicktheories.core.RunStatistics;
+
 class SearchResult<T> {
  
   private final Optional<Throwable> smallestThrowable;
   private final boolean exhausted;
   private final int executedExamples;
   private final List<T> falisifyingValues;
+  private final RunStatistics statistics;
   
-  SearchResult(boolean exhausted, int executedExamples, List<T> falisifyingValues, Optional<Throwable> smallestThrowable) {
+  SearchResult(boolean exhausted, int executedExamples, List<T> falisifyingValues, Optional<Throwable> smallestThrowable,
+      RunStatistics statistics) {
     this.exhausted = exhausted;
     this.executedExamples = executedExamples;
     this.falisifyingValues = falisifyingValues;
     this.smallestThrowable = smallestThrowable;
+    this.statistics = statistics;
   }
   
   boolean isFalsified() {
@@ -43,5 +48,9 @@ class SearchResult<T> {
   Optional<Throwable> getSmallestThrowable() {
     return smallestThrowable;
   } 
+
+  RunStatistics statistics() {
+    return statistics;
+  }
   
 }
@@ -1,22 +1,60 @@
 package org.quicktheories.impl;
 
 import org.quicktheories.core.DetatchedRandomnessSource;
+import org.quicktheories.core.Gen;
 import org.quicktheories.core.PseudoRandom;
 
+/**
+ * Draws values from a PRNG, replaying any forced values that are permitted by
+ * the constraints they are requested under, and captures the values drawn.
+ *
+ * A source can be reset and reused for the next example, so that a search
+ * does not allocate a new source and precursor for each example. The captured
+ * precursor is overwritten when this happens.
+ */
 class ShapedDataSource implements ExtendedRandomnessSource {
-  
+
+  static final long[] NO_FORCED_VALUES = new long[0];
+
   private final PseudoRandom r;
-  private final long[] forced;
-  private int forcedIndex = 0;
+  private long[] forced;
+  private int forcedIndex;
   private int remainingTries;
-  private int failedAssumptions = 0;
+  private int failedAssumptions;
    
   private final Precursor precursor = new Precursor();
   
   ShapedDataSource(PseudoRandom r, long[] forced, int maxTries) {
     this.r = r;
+    reset(forced, maxTries);
+  }
+
+  /**
+   * Prepares the source to generate a new example, discarding the captured
+   * precursor
+   *
+   * @param forced
+   *          values to replay
+   * @param maxTries
+   *          number of failed assumptions allowed
+   */
+  void reset(long[] forced, int maxTries) {
     this.forced = forced;
+    this.forcedIndex = 0;
     this.remainingTries = maxTries;
+    this.failedAssumptions = 0;
+    this.precursor.clear();
+  }
+
+  /**
+   * Resets the source and generates a value from it. The returned precursor is
+   * owned by this source and is only valid until it is next reset, pairs that
+   * must outlive this should be retained.
+   */
+  <T> PrecursorDataPair<T> generate(Gen<T> gen, long[] forced, int maxTries) {
+    reset(forced, maxTries);
+    T t = gen.generate(this);
+    return new PrecursorDataPair<>(precursor, failedAssumptions, t);
   }
 
   @Override
@@ -44,6 +82,16 @@ class ShapedDataSource implements ExtendedRandomnessSource {
     }
   }  
   
+  @Override
+  public void startSpan() {
+    precursor.startSpan();
+  }
+
+  @Override
+  public void endSpan() {
+    precursor.endSpan();
+  }
+
   Precursor capturedPrecursor() {
     return precursor;
   }
@@ -0,0 +1,168 @@
+package org.quicktheories.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically writes the smallest falsifying precursor found while shrinking
+ * to a file, so that shrinking can be resumed from it by a later run.
+ *
+ * The file holds each value along with the bounds and shrink target of its
+ * constraint. It is written to a temporary file and moved into place, so a
+ * run killed part way through a write leaves the previous checkpoint intact.
+ * Errors writing the checkpoint are ignored, and a checkpoint that cannot be
+ * read is treated as absent.
+ */
+final class ShrinkCheckpoint {
+
+  static final long            INTERVAL_MILLIS = 1000;
+
+  private static final int     MAGIC           = 0x51545343;
+  private static final int     HEADER_BYTES    = 8;
+  private static final int     VALUE_BYTES     = 33;
+
+  private final Optional<Path> file;
+  private long                 lastWrite;
+  // smallest precursor not yet written
+  private Precursor            pending;
+
+  /**
+   * @param file
+   *          file to checkpoint to, or empty to write no checkpoints
+   */
+  ShrinkCheckpoint(final Optional<Path> file) {
+    this.file = file;
+  }
+
+  /**
+   * Writes the value shrinking starts from
+   *
+   * @param smallest
+   *          falsifying precursor
+   * @param clock
+   *          time in milliseconds
+   */
+  void start(final Precursor smallest, final LongSupplier clock) {
+    this.pending = smallest;
+    flush(clock);
+  }
+
+  /**
+   * Records a smaller falsifying precursor, writing it if a checkpoint has
+   * not been written recently
+   *
+   * @param smallest
+   *          new smallest falsifying precursor
+   * @param clock
+   *          time in milliseconds
+   */
+  void improved(final Precursor smallest, final LongSupplier clock) {
+    this.pending = smallest;
+    if (this.file.isPresent()
+        && clock.getAsLong() - this.lastWrite >= INTERVAL_MILLIS) {
+      flush(clock);
+    }
+  }
+
+  /**
+   * Writes the smallest precursor if it has not already been written
+   *
+   * @param clock
+   *          time in milliseconds
+   */
+  void finish(final LongSupplier clock) {
+    flush(clock);
+  }
+
+  private void flush(final LongSupplier clock) {
+    if (this.file.isPresent() && this.pending != null) {
+      write(this.file.get(), this.pending);
+      this.lastWrite = clock.getAsLong();
+    }
+    this.pending = null;
+  }
+
+  static void write(final Path file, final Precursor precursor) {
+    final Path dir = file.toAbsolutePath().getParent();
+    final Path name = file.getFileName();
+    if (dir == null || name == null) {
+      return;
+    }
+    Path temp = null;
+    try {
+      Files.createDirectories(dir);
+      temp = Files.createTempFile(dir, name.toString(), ".tmp");
+      Files.write(temp, toBytes(precursor));
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (final IOException | RuntimeException e) {
+      deleteQuietly(temp);
+    }
+  }
+
+  static Optional<Precursor> read(final Path file) {
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try {
+      return fromBytes(ByteBuffer.wrap(Files.readAllBytes(file)));
+    } catch (final IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static byte[] toBytes(final Precursor precursor) {
+    final ByteBuffer buffer = ByteBuffer
+        .allocate(HEADER_BYTES + (precursor.size() * VALUE_BYTES));
+    buffer.putInt(MAGIC);
+    buffer.putInt(precursor.size());
+    for (int i = 0; i != precursor.size(); i++) {
+      final OptionalLong target = precursor.shrinkTarget(i);
+      buffer.putLong(precursor.get(i));
+      buffer.putLong(precursor.min(i));
+      buffer.putLong(precursor.max(i));
+      buffer.put((byte) (target.isPresent() ? 1 : 0));
+      buffer.putLong(target.orElse(0));
+    }
+    return buffer.array();
+  }
+
+  private static Optional<Precursor> fromBytes(final ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      return Optional.empty();
+    }
+    final int size = buffer.getInt();
+    if (size < 0 || buffer.remaining() != size * VALUE_BYTES) {
+      return Optional.empty();
+    }
+    final Precursor precursor = new Precursor();
+    for (int i = 0; i != size; i++) {
+      final long value = buffer.getLong();
+      final Constraint between = Constraint.between(buffer.getLong(),
+          buffer.getLong());
+      final boolean hasTarget = buffer.get() != 0;
+      final long target = buffer.getLong();
+      precursor.store(value,
+          hasTarget ? between.withShrinkPoint(target)
+              : between.withNoShrinkPoint());
+    }
+    return Optional.of(precursor);
+  }
+
+  private static void deleteQuietly(final Path temp) {
+    if (temp != null) {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (final IOException e) {
+        // nothing more can be done
+      }
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+package org.quicktheories.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers the result of checking the property for values generated while
+ * shrinking, so that candidates that generate a value equal to one already
+ * checked do not run the property again. Values are compared by equals and
+ * hashCode and the least recently used results are evicted once the cache is
+ * full.
+ *
+ * Not thread safe.
+ */
+final class ShrinkResultCache<T> {
+
+  private final int                                         maxSize;
+  private final LinkedHashMap<T, Optional<Falsification<T>>> results;
+
+  ShrinkResultCache(final int maxSize) {
+    this.maxSize = maxSize;
+    this.results = new LeastRecentlyUsed<>(maxSize);
+  }
+
+  boolean contains(T value) {
+    return this.results.containsKey(value);
+  }
+
+  /**
+   * Returns the remembered result for a value, which must be contained in the
+   * cache
+   *
+   * @param value
+   *          generated value
+   * @return result of checking the value
+   */
+  Optional<Falsification<T>> get(T value) {
+    return this.results.get(value);
+  }
+
+  void put(T value, Optional<Falsification<T>> result) {
+    if (this.maxSize != 0) {
+      this.results.put(value, result);
+    }
+  }
+
+  int size() {
+    return this.results.size();
+  }
+
+  @SuppressWarnings("serial")
+  private static final class LeastRecentlyUsed<K, V>
+      extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    LeastRecentlyUsed(final int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+      return size() > this.maxSize;
+    }
+  }
+
+}
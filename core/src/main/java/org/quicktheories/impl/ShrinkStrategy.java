@@ -6,4 +6,33 @@ public interface ShrinkStrategy {
 
   long[] shrink(PseudoRandom r, Precursor in);
 
+  /**
+   * Returns true if a candidate that falsifies the property should replace
+   * the smallest falsifying precursor found so far. Candidates that would not
+   * be accepted are not checked against the property.
+   *
+   * @param candidate
+   *          precursor generated from a shrunk value
+   * @param smallest
+   *          smallest falsifying precursor found so far
+   * @return true if the candidate should be used if it falsifies
+   */
+  default boolean accepts(Precursor candidate, Precursor smallest) {
+    return true;
+  }
+
+  /**
+   * Called once the candidates returned since this was last called have been
+   * checked, with the one that replaced the smallest falsifying precursor.
+   * Candidates are checked one at a time unless shrinking in parallel, when a
+   * batch is returned before any are checked and the accepted one need not
+   * be the last.
+   *
+   * @param candidate
+   *          index of the accepted candidate among those returned since this
+   *          was last called, or -1 if none was accepted
+   */
+  default void accepted(int candidate) {
+  }
+
 }
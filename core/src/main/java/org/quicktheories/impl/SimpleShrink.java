@@ -1,7 +1,5 @@
 package org.quicktheories.impl;
 
-import java.util.Arrays;
-
 import org.quicktheories.core.PseudoRandom;
 
 /**
@@ -19,7 +17,7 @@ public class SimpleShrink implements ShrinkStrategy {
       long[] toShrink = precursor.current();
       singleStepShrink(toShrink, r, precursor);
       
-      if (Arrays.equals(toShrink, precursor.current())) {
+      if (precursor.valuesEqual(toShrink)) {
         twoStepShrink(toShrink, r, precursor);
       }
 
@@ -59,7 +57,10 @@ public class SimpleShrink implements ShrinkStrategy {
     // but occasionally values will have equal "size". It may still be
     // important to vary them to avoid getting stuck in a local minima.
     // An example would be choosing between commands in a stateful test.
-    return precursor.shrinkTarget(index).orElseGet( () -> r.nextLong(precursor.min(index), precursor.max(index)));
+    if (precursor.hasShrinkTarget(index)) {
+      return precursor.target(index);
+    }
+    return r.nextLong(precursor.min(index), precursor.max(index));
   }
   
 
@@ -0,0 +1,225 @@
+package org.quicktheories.impl;
+
+import java.util.Arrays;
+
+import org.quicktheories.core.RunStatistics;
+
+/**
+ * Collects statistics for a run. Statistics from parallel workers are merged
+ * into those of the run once the workers complete.
+ *
+ * Reading the clock can cost more than generating and checking a simple
+ * example, so generation and property times are measured for a sample of
+ * examples and scaled up to estimate the totals.
+ */
+final class Statistics implements RunStatistics {
+
+  private static final int BUCKETS = Integer.SIZE + 1;
+
+  private final VisitedValues visitedValues;
+
+  private int    examples;
+  private int    generations;
+  private int    duplicatesSkipped;
+  private double mergedFalseSkips;
+  // false skips estimated once searching finished, or -1 while searching
+  private double searchFalseSkips = -1;
+  private long   failedAssumptions;
+  private int    timedGenerations;
+  private long   sampledGenerationNanos;
+  private int    timedExamples;
+  private long   sampledPropertyNanos;
+  private long   shrinkNanos;
+  private long   totalNanos;
+  private int    shrinkCyclesAttempted;
+  private int    shrinkCyclesAccepted;
+  private int    shrinkDuplicatesSkipped;
+  private int    shrinkResultsReused;
+  private final long[] precursorLengths = new long[BUCKETS];
+
+  Statistics(VisitedValues visitedValues) {
+    this.visitedValues = visitedValues;
+  }
+
+  void generated(int failedAssumptions) {
+    generations = generations + 1;
+    this.failedAssumptions = this.failedAssumptions + failedAssumptions;
+  }
+
+  void generationTimed(long nanos) {
+    timedGenerations = timedGenerations + 1;
+    sampledGenerationNanos = sampledGenerationNanos + nanos;
+  }
+
+  void duplicateSkipped() {
+    duplicatesSkipped = duplicatesSkipped + 1;
+  }
+
+  /**
+   * Records that searching has finished, so that values looked up while
+   * shrinking do not add to the estimated false skips
+   */
+  void searchFinished() {
+    if (searchFalseSkips == -1) {
+      searchFalseSkips = visitedValues.estimatedFalseSkips();
+    }
+  }
+
+  void executed(int precursorLength) {
+    examples = examples + 1;
+    precursorLengths[bucketFor(precursorLength)]++;
+  }
+
+  void executionTimed(long nanos) {
+    timedExamples = timedExamples + 1;
+    sampledPropertyNanos = sampledPropertyNanos + nanos;
+  }
+
+  void shrinkAttempted(int failedAssumptions) {
+    shrinkCyclesAttempted = shrinkCyclesAttempted + 1;
+    this.failedAssumptions = this.failedAssumptions + failedAssumptions;
+  }
+
+  void shrinkAccepted() {
+    shrinkCyclesAccepted = shrinkCyclesAccepted + 1;
+  }
+
+  void shrinkDuplicateSkipped() {
+    shrinkDuplicatesSkipped = shrinkDuplicatesSkipped + 1;
+  }
+
+  void shrinkResultReused() {
+    shrinkResultsReused = shrinkResultsReused + 1;
+  }
+
+  void shrinkTime(long nanos) {
+    shrinkNanos = shrinkNanos + nanos;
+  }
+
+  void totalTime(long nanos) {
+    totalNanos = totalNanos + nanos;
+  }
+
+  /**
+   * Adds the search statistics of a parallel worker. Elapsed time is not
+   * added as the workers ran concurrently.
+   */
+  void merge(Statistics worker) {
+    examples = examples + worker.examples;
+    generations = generations + worker.generations;
+    duplicatesSkipped = duplicatesSkipped + worker.duplicatesSkipped;
+    mergedFalseSkips = mergedFalseSkips + worker.estimatedFalseSkips();
+    failedAssumptions = failedAssumptions + worker.failedAssumptions;
+    timedGenerations = timedGenerations + worker.timedGenerations;
+    sampledGenerationNanos = sampledGenerationNanos
+        + worker.sampledGenerationNanos;
+    timedExamples = timedExamples + worker.timedExamples;
+    sampledPropertyNanos = sampledPropertyNanos + worker.sampledPropertyNanos;
+    shrinkCyclesAttempted = shrinkCyclesAttempted
+        + worker.shrinkCyclesAttempted;
+    shrinkCyclesAccepted = shrinkCyclesAccepted + worker.shrinkCyclesAccepted;
+    shrinkDuplicatesSkipped = shrinkDuplicatesSkipped
+        + worker.shrinkDuplicatesSkipped;
+    shrinkResultsReused = shrinkResultsReused + worker.shrinkResultsReused;
+    for (int i = 0; i != BUCKETS; i++) {
+      precursorLengths[i] = precursorLengths[i] + worker.precursorLengths[i];
+    }
+  }
+
+  @Override
+  public int examples() {
+    return examples;
+  }
+
+  @Override
+  public int duplicatesSkipped() {
+    return duplicatesSkipped;
+  }
+
+  @Override
+  public double estimatedFalseSkips() {
+    return mergedFalseSkips + (searchFalseSkips == -1
+        ? visitedValues.estimatedFalseSkips() : searchFalseSkips);
+  }
+
+  @Override
+  public long failedAssumptions() {
+    return failedAssumptions;
+  }
+
+  @Override
+  public long generationNanos() {
+    return scale(sampledGenerationNanos, timedGenerations, generations);
+  }
+
+  @Override
+  public long propertyNanos() {
+    return scale(sampledPropertyNanos, timedExamples, examples);
+  }
+
+  @Override
+  public long shrinkNanos() {
+    return shrinkNanos;
+  }
+
+  @Override
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  @Override
+  public int shrinkCyclesAttempted() {
+    return shrinkCyclesAttempted;
+  }
+
+  @Override
+  public int shrinkCyclesAccepted() {
+    return shrinkCyclesAccepted;
+  }
+
+  @Override
+  public int shrinkDuplicatesSkipped() {
+    return shrinkDuplicatesSkipped;
+  }
+
+  @Override
+  public int shrinkResultsReused() {
+    return shrinkResultsReused;
+  }
+
+  @Override
+  public long[] precursorLengthHistogram() {
+    int used = BUCKETS;
+    while (used != 0 && precursorLengths[used - 1] == 0) {
+      used = used - 1;
+    }
+    return Arrays.copyOf(precursorLengths, used);
+  }
+
+  @Override
+  public String toString() {
+    return "examples=" + examples
+        + ", duplicatesSkipped=" + duplicatesSkipped
+        + ", failedAssumptions=" + failedAssumptions
+        + ", generationMillis=" + (generationNanos() / 1_000_000)
+        + ", propertyMillis=" + (propertyNanos() / 1_000_000)
+        + ", shrinkMillis=" + (shrinkNanos / 1_000_000)
+        + ", totalMillis=" + (totalNanos / 1_000_000)
+        + ", shrinkCycles=" + shrinkCyclesAccepted + "/" + shrinkCyclesAttempted
+        + ", shrinkDuplicatesSkipped=" + shrinkDuplicatesSkipped
+        + ", shrinkResultsReused=" + shrinkResultsReused
+        + ", precursorLengths=" + Arrays.toString(precursorLengthHistogram());
+  }
+
+  private static long scale(long sampledNanos, int sampled, int total) {
+    if (sampled == 0) {
+      return 0;
+    }
+    return (long) (sampledNanos * ((double) total / sampled));
+  }
+
+  static int bucketFor(int precursorLength) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(precursorLength);
+  }
+
+}
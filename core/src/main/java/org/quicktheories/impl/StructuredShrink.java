@@ -0,0 +1,533 @@
+package org.quicktheories.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.quicktheories.core.PseudoRandom;
+
+/**
+ * Shrinks by running deterministic passes over the precursor, in turn
+ *
+ * <ul>
+ * <li>deleting runs of spans that share a parent span, halving the length of
+ * run down to single spans. When the parent's first value is not within a
+ * child span it is taken to be a count of them, and lowered by the number
+ * deleted</li>
+ * <li>deleting blocks of values, halving the block size down to single
+ * values. Deletion is first tried along with lowering an earlier value that
+ * could be a count of the values following it</li>
+ * <li>setting blocks of values to their shrink targets</li>
+ * <li>binary searching each value towards its shrink target</li>
+ * <li>replacing spans with a copy of a simpler adjacent span sharing their
+ * parent</li>
+ * <li>swapping adjacent values when the earlier is further from its target
+ * </li>
+ * </ul>
+ * 
+ * Spans are marked by generators, such as those for collections, and allow
+ * elements to be removed without changing the values drawn after them.
+ * 
+ * Passes are repeated while they make progress. When a full round of passes
+ * finds nothing smaller, random steps are taken as by {@link SimpleShrink}
+ * before the passes are tried again.
+ * 
+ * A candidate is only accepted if it is smaller than the current smallest
+ * precursor, so shrinking cannot cycle. Instances hold the state of the passes
+ * so must not be shared between shrinks. The state after each candidate is
+ * kept until they have been checked, so that when shrinking in parallel the
+ * passes continue from the candidate accepted rather than the last returned.
+ */
+public class StructuredShrink implements ShrinkStrategy {
+
+  static final int           RANDOM_STEPS = 100;
+
+  private final SimpleShrink random       = new SimpleShrink();
+
+  private enum Pass {
+    DELETE_SPANS, DELETE_BLOCKS, TARGET_BLOCKS, SEARCH_VALUES, COPY_SPANS,
+    SWAP_ADJACENT
+  }
+
+  // values of the precursor candidates are currently made from
+  private long[]  base;
+  // spans of the base grouped by parent, outermost first
+  private List<Siblings> siblings;
+  private boolean improvedThisRound;
+  private int     randomStepsLeft;
+
+  private Pass    pass;
+  private int     group;
+  private int     blockSize;
+  private int     position;
+  // position of the last candidate, so a pass can stay put if it was accepted
+  private int     lastPosition;
+  private boolean lowerCountTried;
+
+  // smallest distance from its target the current value has not been tried at
+  private long    low;
+  private long    lastLow;
+
+  // state after each candidate returned since the last were checked
+  private final List<State> returned = new ArrayList<>();
+
+  @Override
+  public long[] shrink(PseudoRandom r, Precursor in) {
+    if (base == null) {
+      base = in.current();
+      siblings = Siblings.of(in);
+      startRound();
+    } else if (!in.valuesEqual(base)) {
+      improved(in);
+    }
+
+    if (randomStepsLeft > 0) {
+      randomStepsLeft = randomStepsLeft - 1;
+      returned.add(new State(this));
+      return random.shrink(r, in);
+    }
+
+    long[] candidate = nextCandidate(in);
+    if (candidate == null && improvedThisRound) {
+      startRound();
+      candidate = nextCandidate(in);
+    }
+
+    if (candidate == null) {
+      // passes have stalled
+      startRound();
+      randomStepsLeft = RANDOM_STEPS - 1;
+      candidate = random.shrink(r, in);
+    }
+    returned.add(new State(this));
+    return candidate;
+  }
+
+  @Override
+  public boolean accepts(Precursor candidate, Precursor smallest) {
+    return Core.compareSize(candidate, smallest) < 0;
+  }
+
+  @Override
+  public void accepted(int candidate) {
+    if (candidate != -1) {
+      returned.get(candidate).restore(this);
+    }
+    returned.clear();
+  }
+
+  private void improved(Precursor in) {
+    // in case the candidates checked were not reported
+    returned.clear();
+    base = in.current();
+    siblings = Siblings.of(in);
+    improvedThisRound = true;
+    if (pass == Pass.DELETE_SPANS) {
+      // spans after those deleted have moved into their place
+      position = lastPosition;
+    } else if (pass == Pass.DELETE_BLOCKS) {
+      // values after a deleted block have moved into it
+      position = lastPosition;
+      lowerCountTried = false;
+    } else if (pass == Pass.SEARCH_VALUES) {
+      // continue searching below the accepted value
+      low = lastLow;
+    }
+  }
+
+  private void startRound() {
+    improvedThisRound = false;
+    startPass(Pass.values()[0]);
+  }
+
+  private void startPass(Pass p) {
+    pass = p;
+    group = 0;
+    position = 0;
+    low = 0;
+    lowerCountTried = false;
+    if (p == Pass.DELETE_SPANS) {
+      // first try deleting every span in the group
+      blockSize = siblings.isEmpty() ? 0 : siblings.get(0).size();
+    } else {
+      blockSize = Math.max(1, base.length / 2);
+    }
+  }
+
+  private long[] nextCandidate(Precursor in) {
+    while (pass != null) {
+      final long[] candidate = candidateFromPass(in);
+      if (candidate != null) {
+        return candidate;
+      }
+      final int next = pass.ordinal() + 1;
+      if (next == Pass.values().length) {
+        pass = null;
+      } else {
+        startPass(Pass.values()[next]);
+      }
+    }
+    return null;
+  }
+
+  private long[] candidateFromPass(Precursor in) {
+    switch (pass) {
+    case DELETE_SPANS:
+      return deleteSpans(in);
+    case DELETE_BLOCKS:
+      return deleteBlock(in);
+    case TARGET_BLOCKS:
+      return targetBlock(in);
+    case SEARCH_VALUES:
+      return searchValue(in);
+    case COPY_SPANS:
+      return copySpan(in);
+    default:
+      return swapAdjacent(in);
+    }
+  }
+
+  private long[] deleteSpans(Precursor in) {
+    while (group < siblings.size()) {
+      final Siblings g = siblings.get(group);
+      while (blockSize > 0) {
+        if (position < g.size()) {
+          lastPosition = position;
+          final int last = Math.min(g.size(), position + blockSize) - 1;
+          position = position + blockSize;
+          return g.delete(in, base, lastPosition, last);
+        }
+        blockSize = blockSize / 2;
+        position = 0;
+      }
+      group = group + 1;
+      position = 0;
+      if (group < siblings.size()) {
+        blockSize = siblings.get(group).size();
+      }
+    }
+    return null;
+  }
+
+  private long[] deleteBlock(Precursor in) {
+    while (blockSize > 0) {
+      if (position < base.length) {
+        lastPosition = position;
+        final int end = Math.min(base.length, position + blockSize);
+        final long[] candidate = new long[base.length - (end - position)];
+        System.arraycopy(base, 0, candidate, 0, position);
+        System.arraycopy(base, end, candidate, position, base.length - end);
+        if (!lowerCountTried) {
+          // values are often preceded by a count of them, so first try
+          // deleting them along with lowering the count
+          lowerCountTried = true;
+          if (lowerCount(in, candidate, position, end - position)) {
+            return candidate;
+          }
+        }
+        lowerCountTried = false;
+        position = position + blockSize;
+        return candidate;
+      }
+      blockSize = blockSize / 2;
+      position = 0;
+    }
+    return null;
+  }
+
+  private static boolean lowerCount(Precursor in, long[] candidate,
+      int before, int by) {
+    // a count of every following value is the most likely, otherwise the
+    // nearest value no larger than the number of values following it
+    int count = -1;
+    for (int i = before - 1; i >= 0; i--) {
+      final long following = candidate.length + by - i - 1;
+      if (canLower(in, candidate, i, by) && candidate[i] <= following) {
+        if (candidate[i] == following) {
+          count = i;
+          break;
+        }
+        if (count == -1) {
+          count = i;
+        }
+      }
+    }
+    if (count == -1) {
+      return false;
+    }
+    candidate[count] = candidate[count] > in.target(count)
+        ? candidate[count] - by : candidate[count] + by;
+    return true;
+  }
+
+  private static boolean canLower(Precursor in, long[] candidate, int i,
+      int by) {
+    return in.hasShrinkTarget(i) && candidate[i] >= 0 && Long
+        .compareUnsigned(distance(candidate[i], in.target(i)), by) >= 0;
+  }
+
+  private long[] targetBlock(Precursor in) {
+    // single values are set to their targets when searched
+    while (blockSize > 1) {
+      while (position < base.length) {
+        lastPosition = position;
+        final int end = Math.min(base.length, position + blockSize);
+        position = position + blockSize;
+        final long[] candidate = base.clone();
+        for (int i = lastPosition; i != end; i++) {
+          if (in.hasShrinkTarget(i)) {
+            candidate[i] = in.target(i);
+          }
+        }
+        if (!Arrays.equals(candidate, base)) {
+          return candidate;
+        }
+      }
+      blockSize = blockSize / 2;
+      position = 0;
+    }
+    return null;
+  }
+
+  private long[] searchValue(Precursor in) {
+    while (position < base.length) {
+      final long target = in.target(position);
+      final long distance = distance(base[position], target);
+      if (!in.hasShrinkTarget(position)
+          || Long.compareUnsigned(low, distance) >= 0) {
+        position = position + 1;
+        low = 0;
+        continue;
+      }
+
+      lastPosition = position;
+      lastLow = low;
+      // the target itself is tried first
+      final long tried = low == 0 ? 0 : low + ((distance - low) >>> 1);
+      low = tried + 1;
+      final long[] candidate = base.clone();
+      candidate[position] = base[position] > target ? target + tried
+          : target - tried;
+      return candidate;
+    }
+    return null;
+  }
+
+  private long[] copySpan(Precursor in) {
+    while (group < siblings.size()) {
+      final Siblings g = siblings.get(group);
+      while (position < g.size() - 1) {
+        final int i = position;
+        position = position + 1;
+        final long[] candidate = g.copySimpler(in, base, i);
+        if (candidate != null) {
+          return candidate;
+        }
+      }
+      group = group + 1;
+      position = 0;
+    }
+    return null;
+  }
+
+  private long[] swapAdjacent(Precursor in) {
+    while (position < base.length - 1) {
+      final int i = position;
+      position = position + 1;
+      final long next = base[i + 1];
+      if (next >= in.min(i) && next <= in.max(i) && Long.compareUnsigned(
+          distance(next, in.target(i)), distance(base[i], in.target(i))) < 0) {
+        lastPosition = i;
+        final long[] candidate = base.clone();
+        candidate[i] = next;
+        candidate[i + 1] = base[i];
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private static long distance(long value, long target) {
+    return value >= target ? value - target : target - value;
+  }
+
+  /**
+   * State of the passes after a candidate was returned
+   */
+  private static final class State {
+    private final boolean improvedThisRound;
+    private final int     randomStepsLeft;
+    private final Pass    pass;
+    private final int     group;
+    private final int     blockSize;
+    private final int     position;
+    private final int     lastPosition;
+    private final boolean lowerCountTried;
+    private final long    low;
+    private final long    lastLow;
+
+    State(StructuredShrink s) {
+      this.improvedThisRound = s.improvedThisRound;
+      this.randomStepsLeft = s.randomStepsLeft;
+      this.pass = s.pass;
+      this.group = s.group;
+      this.blockSize = s.blockSize;
+      this.position = s.position;
+      this.lastPosition = s.lastPosition;
+      this.lowerCountTried = s.lowerCountTried;
+      this.low = s.low;
+      this.lastLow = s.lastLow;
+    }
+
+    void restore(StructuredShrink s) {
+      s.improvedThisRound = this.improvedThisRound;
+      s.randomStepsLeft = this.randomStepsLeft;
+      s.pass = this.pass;
+      s.group = this.group;
+      s.blockSize = this.blockSize;
+      s.position = this.position;
+      s.lastPosition = this.lastPosition;
+      s.lowerCountTried = this.lowerCountTried;
+      s.low = this.low;
+      s.lastLow = this.lastLow;
+    }
+  }
+
+  /**
+   * Spans sharing a parent span, along with the index of the value counting
+   * them
+   */
+  private static final class Siblings {
+    private final int   count;
+    private final int[] starts;
+    private final int[] ends;
+
+    private Siblings(int count, int[] starts, int[] ends) {
+      this.count = count;
+      this.starts = starts;
+      this.ends = ends;
+    }
+
+    /**
+     * Groups the spans of a precursor by their parent. Spans with no parent
+     * form a group with no count.
+     */
+    static List<Siblings> of(Precursor in) {
+      final int n = in.spanCount();
+      if (n == 0) {
+        return new ArrayList<>();
+      }
+
+      // parents before children, so the parent of each span is on the stack
+      final Integer[] order = new Integer[n];
+      for (int i = 0; i != n; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> {
+        final int c = Integer.compare(in.spanStart(a), in.spanStart(b));
+        return c != 0 ? c : Integer.compare(in.spanEnd(b), in.spanEnd(a));
+      });
+
+      final List<List<Integer>> children = new ArrayList<>();
+      for (int i = 0; i != n + 1; i++) {
+        children.add(new ArrayList<>());
+      }
+      final int[] stack = new int[n];
+      int depth = 0;
+      for (final int span : order) {
+        while (depth != 0
+            && in.spanEnd(stack[depth - 1]) <= in.spanStart(span)) {
+          depth = depth - 1;
+        }
+        // spans without a parent are grouped under index n
+        children.get(depth == 0 ? n : stack[depth - 1]).add(span);
+        stack[depth] = span;
+        depth = depth + 1;
+      }
+
+      final List<Siblings> groups = new ArrayList<>();
+      add(groups, in, -1, children.get(n));
+      for (final int span : order) {
+        add(groups, in, span, children.get(span));
+      }
+      return groups;
+    }
+
+    private static void add(List<Siblings> groups, Precursor in, int parent,
+        List<Integer> spans) {
+      if (spans.isEmpty()) {
+        return;
+      }
+      final int[] starts = new int[spans.size()];
+      final int[] ends = new int[spans.size()];
+      for (int i = 0; i != starts.length; i++) {
+        starts[i] = in.spanStart(spans.get(i));
+        ends[i] = in.spanEnd(spans.get(i));
+      }
+      final boolean counted = parent != -1
+          && in.spanStart(parent) < starts[0];
+      groups.add(new Siblings(counted ? in.spanStart(parent) : -1, starts,
+          ends));
+    }
+
+    int size() {
+      return starts.length;
+    }
+
+    long[] delete(Precursor in, long[] base, int first, int last) {
+      final int from = starts[first];
+      final int to = ends[last];
+      final long[] candidate = new long[base.length - (to - from)];
+      System.arraycopy(base, 0, candidate, 0, from);
+      System.arraycopy(base, to, candidate, from, base.length - to);
+
+      final int deleted = last - first + 1;
+      if (count != -1 && in.hasShrinkTarget(count)
+          && base[count] > in.target(count) && Long.compareUnsigned(
+              distance(base[count], in.target(count)), deleted) >= 0) {
+        candidate[count] = base[count] - deleted;
+      }
+      return candidate;
+    }
+
+    /**
+     * Returns a candidate with the larger of two adjacent spans replaced by a
+     * copy of the other, or null if they are equally simple
+     */
+    long[] copySimpler(Precursor in, long[] base, int i) {
+      final int c = compare(in, base, i, i + 1);
+      if (c == 0) {
+        return null;
+      }
+      final int from = c < 0 ? i : i + 1;
+      final int to = c < 0 ? i + 1 : i;
+      final int length = ends[from] - starts[from];
+      final int removed = ends[to] - starts[to];
+      final long[] candidate = new long[base.length - removed + length];
+      System.arraycopy(base, 0, candidate, 0, starts[to]);
+      System.arraycopy(base, starts[from], candidate, starts[to], length);
+      System.arraycopy(base, ends[to], candidate, starts[to] + length,
+          base.length - ends[to]);
+      return candidate;
+    }
+
+    private int compare(Precursor in, long[] base, int a, int b) {
+      final int lengthA = ends[a] - starts[a];
+      final int lengthB = ends[b] - starts[b];
+      if (lengthA != lengthB) {
+        return Integer.compare(lengthA, lengthB);
+      }
+      for (int i = 0; i != lengthA; i++) {
+        final int ia = starts[a] + i;
+        final int ib = starts[b] + i;
+        final int c = Long.compareUnsigned(distance(base[ia], in.target(ia)),
+            distance(base[ib], in.target(ib)));
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    }
+  }
+
+}
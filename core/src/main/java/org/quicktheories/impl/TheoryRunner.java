@@ -37,6 +37,7 @@ public final class TheoryRunner<P, T> {
 
   public void check(final Predicate<T> property) {
     final SearchResult<T> results = runSearch(property);
+    this.strategy.reporter().statistics(results.statistics());
     if (results.isFalsified()) {
       reportFalsification(results);
     } else if (results.wasExhausted()) {
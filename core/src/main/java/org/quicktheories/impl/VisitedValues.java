@@ -0,0 +1,33 @@
+package org.quicktheories.impl;
+
+/**
+ * Records hashes of the examples that have been tried so that duplicates can
+ * be skipped.
+ */
+interface VisitedValues {
+
+  /**
+   * Records the hash
+   *
+   * @param hash
+   *          hash of an example
+   * @return true if the hash has not been seen before
+   */
+  boolean add(long hash);
+
+  /**
+   * Estimate of how many values passed to add were wrongly reported as already
+   * seen. Exact implementations will always return 0.
+   *
+   * @return expected number of new values that were skipped
+   */
+  double estimatedFalseSkips();
+
+  static VisitedValues forMemoryLimit(int bytes) {
+    if (bytes <= 0) {
+      return new LongHashSet();
+    }
+    return new RotatingBloomFilter(bytes);
+  }
+
+}
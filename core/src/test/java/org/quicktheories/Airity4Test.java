@@ -117,7 +117,7 @@ public class Airity4Test {
         .check(a -> a.equals("1:1:1:1"));
 
     String actual = verifier.smallestFalsifiedValue();
-    assertThat(actual).isEqualTo("2:1:1:1");
+    assertThat(actual).isEqualTo("1:2:1:1");
   }
 
   @Test
@@ -158,7 +158,7 @@ public class Airity4Test {
 
     Tuple5<Integer, Integer, Integer, Integer, String> actual = verifier
         .smallestFalsifiedValue();
-    assertThat(actual).isEqualTo(Tuple5.of(3, 1, 1, 1, "3:1:1:1"));
+    assertThat(actual).isEqualTo(Tuple5.of(1, 3, 1, 1, "1:3:1:1"));
   }
 
   @Test
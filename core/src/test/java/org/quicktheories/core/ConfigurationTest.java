@@ -38,4 +38,63 @@ public class ConfigurationTest {
         .isEqualTo(500 * 100);
   }
 
+  @Test
+  public void shouldUseParallelismFromSystemProperty() {
+    System.setProperty("QT_PARALLELISM", "3");
+    assertThat(Configuration.systemStrategy().parallelism()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldDefaultToSearchingOnASingleThread() {
+    assertThat(Configuration.systemStrategy().parallelism()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldUseDeduplicationMemoryFromSystemProperty() {
+    System.setProperty("QT_DEDUP_MEMORY", "65536");
+    assertThat(Configuration.systemStrategy().deduplicationMemory())
+        .isEqualTo(65536);
+  }
+
+  @Test
+  public void shouldDefaultToRememberingEveryExample() {
+    assertThat(Configuration.systemStrategy().deduplicationMemory())
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void shouldUseShrinkStallLimitFromSystemProperty() {
+    System.setProperty("QT_SHRINK_STALL_LIMIT", "200");
+    assertThat(Configuration.systemStrategy().shrinkStallLimit())
+        .isEqualTo(200);
+  }
+
+  @Test
+  public void shouldUseShrinkTimeFromSystemProperty() {
+    System.setProperty("QT_SHRINK_TIME", "5000");
+    assertThat(Configuration.systemStrategy().shrinkTimeMillis())
+        .isEqualTo(5000);
+  }
+
+  @Test
+  public void shouldAcceptShrinkTimesTooLongForAnInt() {
+    System.setProperty("QT_SHRINK_TIME", "3000000000");
+    assertThat(Configuration.systemStrategy().shrinkTimeMillis())
+        .isEqualTo(3000000000L);
+  }
+
+  @Test
+  public void shouldUseShrinkCacheSizeFromSystemProperty() {
+    System.setProperty("QT_SHRINK_CACHE", "1000");
+    assertThat(Configuration.systemStrategy().shrinkCacheSize())
+        .isEqualTo(1000);
+  }
+
+  @Test
+  public void shouldDefaultToNoShrinkLimitsOtherThanCycles() {
+    Strategy strategy = Configuration.systemStrategy();
+    assertThat(strategy.shrinkStallLimit()).isEqualTo(0);
+    assertThat(strategy.shrinkTimeMillis()).isLessThanOrEqualTo(0);
+  }
+
 }
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -128,6 +129,45 @@ public class XOrShiftPRNGTest {
   }
   
   
+  @Test
+  public void shouldGenerateAcrossWideRangeBelowZero() {
+    long max = -(1L << 62);
+    List<Long> generated = generateLongValues(testee,
+        prng -> prng.nextLong(Long.MIN_VALUE, max), 1000);
+    org.assertj.core.api.Assertions.assertThat(generated)
+        .allMatch(l -> l <= max);
+    // a quarter of the range lies below this point
+    org.assertj.core.api.Assertions
+        .assertThat(generated.stream().filter(l -> l < Long.MIN_VALUE + (1L << 60)).count())
+        .isBetween(150L, 350L);
+  }
+
+  @Test
+  public void shouldGenerateEachValueInSmallRangeEqually() {
+    int[] counts = new int[3];
+    for (int i = 0; i != 30000; i++) {
+      counts[testee.nextInt(0, 2)]++;
+    }
+    for (int each : counts) {
+      org.assertj.core.api.Assertions.assertThat(each).isBetween(9500, 10500);
+    }
+  }
+
+  @Test
+  public void shouldMultiplyUnsignedLongs() {
+    long[] values = { 0, 1, 2, 0xFFFFFFFFL, 1L << 32, Long.MAX_VALUE,
+        Long.MIN_VALUE, -1, 0x9E3779B97F4A7C15L };
+    BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    for (long a : values) {
+      for (long b : values) {
+        BigInteger expected = unsigned(a).multiply(unsigned(b)).shiftRight(64);
+        org.assertj.core.api.Assertions
+            .assertThat(unsigned(AbstractPseudoRandom.unsignedMultiplyHigh(a, b)).and(mask))
+            .isEqualTo(expected);
+      }
+    }
+  }
+
   @Test
   public void errorsNicelyWhenNonSensicalRangeRequested() {
     try {
@@ -165,6 +205,22 @@ public class XOrShiftPRNGTest {
     org.assertj.core.api.Assertions.assertThat(generated).containsOnly(ts);
   }
 
+  @Test
+  public void shouldFindRemainderOfTwoToThe64() {
+    long[] bounds = { 1, 2, 3, 7, 0xFFFFFFFFL, (1L << 62) + 1, Long.MAX_VALUE,
+        Long.MIN_VALUE, -3, -1 };
+    BigInteger twoToThe64 = BigInteger.ONE.shiftLeft(64);
+    for (long each : bounds) {
+      org.assertj.core.api.Assertions
+          .assertThat(unsigned(AbstractPseudoRandom.twoToThe64Mod(each)))
+          .isEqualTo(twoToThe64.mod(unsigned(each)));
+    }
+  }
+
+  private static BigInteger unsigned(long l) {
+    return new BigInteger(Long.toUnsignedString(l));
+  }
+
   private List<Long> generateLongValues(PseudoRandom prng,
       Function<PseudoRandom, Long> longGeneratingMethod, int count) {
     List<Long> generated = new ArrayList<>();
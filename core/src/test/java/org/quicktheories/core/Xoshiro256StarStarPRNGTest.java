@@ -0,0 +1,109 @@
+package org.quicktheories.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class Xoshiro256StarStarPRNGTest {
+
+  private Xoshiro256StarStarPRNG testee = new Xoshiro256StarStarPRNG(1);
+
+  @Test
+  public void shouldProduceKnownSequenceForSeed() {
+    assertThat(draw(testee, 3)).containsExactly(-5480124913605472059L,
+        -8846382939111011094L, -7856363154187860716L);
+  }
+
+  @Test
+  public void shouldProduceKnownSequenceAfterJumping() {
+    testee.jump();
+    testee.jump();
+    assertThat(draw(testee, 3)).containsExactly(-4608460592496163613L,
+        3533144811432990164L, -3159237582747153075L);
+  }
+
+  @Test
+  public void shouldAcceptSeedOfZero() {
+    testee = new Xoshiro256StarStarPRNG(0);
+    assertThat(new HashSet<>(Arrays.asList(draw(testee, 10))))
+        .hasSize(10);
+    assertThat(testee.getInitialSeed()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldReportSameInitialSeedForEveryStream() {
+    testee = new Xoshiro256StarStarPRNG(42);
+    assertThat(testee.stream(3).getInitialSeed()).isEqualTo(42);
+  }
+
+  @Test
+  public void shouldStartStreamZeroAtInitialState() {
+    Long[] expected = draw(new Xoshiro256StarStarPRNG(1), 5);
+    assertThat(draw(testee.stream(0), 5)).containsExactly(expected);
+  }
+
+  @Test
+  public void shouldStartEachStreamAtTheSameValuesRegardlessOfPriorDraws() {
+    Long[] expected = draw(testee.stream(2), 5);
+    draw(testee, 100);
+    assertThat(draw(testee.stream(2), 5)).containsExactly(expected);
+  }
+
+  @Test
+  public void shouldStartStreamsAtMultiplesOfTheJumpDistance() {
+    Xoshiro256StarStarPRNG jumped = new Xoshiro256StarStarPRNG(1);
+    jumped.jump();
+    jumped.jump();
+    assertThat(draw(testee.stream(2), 5)).containsExactly(draw(jumped, 5));
+  }
+
+  @Test
+  public void shouldProduceDistinctValuesInEachStream() {
+    Set<Long> seen = new HashSet<>();
+    for (int stream = 0; stream != 8; stream++) {
+      for (Long each : draw(testee.stream(stream), 1000)) {
+        assertThat(seen.add(each)).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void shouldRejectNegativeStreamIndex() {
+    assertThatThrownBy(() -> testee.stream(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldGenerateEveryLongInSmallInterval() {
+    Set<Long> seen = new HashSet<>();
+    for (int i = 0; i != 1000; i++) {
+      seen.add(testee.nextLong(-3, 3));
+    }
+    assertThat(seen).containsExactlyInAnyOrder(-3L, -2L, -1L, 0L, 1L, 2L, 3L);
+  }
+
+  @Test
+  public void shouldGenerateExtremeLongs() {
+    Set<Long> seen = new HashSet<>();
+    for (int i = 0; i != 1000; i++) {
+      seen.add(testee.stream(1).nextLong(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+      seen.add(testee.nextLong(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+    }
+    assertThat(seen).containsExactlyInAnyOrder(Long.MAX_VALUE - 1,
+        Long.MAX_VALUE);
+  }
+
+  private static Long[] draw(Xoshiro256StarStarPRNG prng, int count) {
+    Long[] values = new Long[count];
+    for (int i = 0; i != count; i++) {
+      values[i] = prng.nextLong();
+    }
+    return values;
+  }
+
+}
@@ -53,7 +53,7 @@ public class DoublesTest {
     List<Double> vals = generateValues(testee, 100);
     assertThat(vals.stream().filter( d -> d < 100d).count()).isGreaterThan(5);
     assertThat(vals.stream().filter( d -> d > 500d).count()).isGreaterThan(40);
-    assertThat(vals.stream().filter( d -> d > 900d).count()).isLessThan(10);
+    assertThat(vals.stream().filter( d -> d > 900d).count()).isLessThan(20);
   }  
   
   @Test
@@ -61,9 +61,9 @@ public class DoublesTest {
     Gen<Double> testee = Doubles.between(-10d, 10d);
     List<Double> vals = generateValues(testee, 100);
     assertThat(vals.stream().filter( d -> d < 0d).count()).isGreaterThan(40);
-    assertThat(vals.stream().filter( d -> d < -5d).count()).isLessThan(25);  
+    assertThat(vals.stream().filter( d -> d < -5d).count()).isLessThan(30);  
     assertThat(vals.stream().filter( d -> d > 0d).count()).isGreaterThan(40);
-    assertThat(vals.stream().filter( d -> d > 5d).count()).isLessThan(25);    
+    assertThat(vals.stream().filter( d -> d > 5d).count()).isLessThan(30);    
   }  
   
   @Test(expected = IllegalArgumentException.class)
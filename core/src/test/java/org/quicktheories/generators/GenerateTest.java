@@ -21,7 +21,7 @@ public class GenerateTest {
   
   @Test
   public void oneOfGeneratesFromAllSuppliedGens() { 
-    int samples = 6;
+    int samples = 20;
     Gen<Integer> testee = Generate.oneOf(Generate.constant(1), Generate.constant(2), Generate.constant(3));
     
     assertThatGenerator(testee).generatesAllOfWithNSamples(samples, 1,2,3);
@@ -11,23 +11,23 @@ public class DoublesComponentTest extends ComponentTest<Double> implements WithQ
   public void shouldShrinkUsingCorrectPositiveGeneratorAcrossRange() {
     assertThatFor(doubles().any())
         .check(i -> i < 0d);
-    listElementsAreAllPositiveInDecreasingAbsValueOrder();
+    listElementsAreAllPositiveInIncreasingAbsValueOrder();
   }
 
   @Test
   public void shouldShrinkUsingCorrectNegativeGeneratorAcrossRange() {
     assertThatFor(doubles().any())
         .check(i -> i >= 0d);
-    listElementsAreAllNegativeInDecreasingAbsValueOrder();
+    listElementsAreAllNegativeInIncreasingAbsValueOrder();
   }
 
 
-  private void listElementsAreAllPositiveInDecreasingAbsValueOrder() {
+  private void listElementsAreAllPositiveInIncreasingAbsValueOrder() {
     for (int i = 1; i < listOfShrunkenItems().size(); i++) {
       assertTrue(
           "Expected " + (listOfShrunkenItems().get(i - 1))
-              + " to be bigger than " + (listOfShrunkenItems().get(i)),
-          Math.abs(listOfShrunkenItems().get(i - 1)) >= Math
+              + " to be smaller than " + (listOfShrunkenItems().get(i)),
+          Math.abs(listOfShrunkenItems().get(i - 1)) <= Math
               .abs(listOfShrunkenItems().get(i)));
       assertTrue(
           "Expected " + listOfShrunkenItems().get(i - 1) + " to be positive",
@@ -35,12 +35,12 @@ public class DoublesComponentTest extends ComponentTest<Double> implements WithQ
     }
   }
 
-  private void listElementsAreAllNegativeInDecreasingAbsValueOrder() {
+  private void listElementsAreAllNegativeInIncreasingAbsValueOrder() {
     for (int i = 1; i < listOfShrunkenItems().size(); i++) {
       assertTrue(
           "Expected " + (listOfShrunkenItems().get(i - 1))
-              + " to be bigger than " + (listOfShrunkenItems().get(i)),
-          Math.abs(listOfShrunkenItems().get(i - 1)) >= Math
+              + " to be smaller than " + (listOfShrunkenItems().get(i)),
+          Math.abs(listOfShrunkenItems().get(i - 1)) <= Math
               .abs(listOfShrunkenItems().get(i)));
       assertTrue(
           "Expected " + listOfShrunkenItems().get(i - 1) + " to be positive",
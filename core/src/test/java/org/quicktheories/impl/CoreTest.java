@@ -0,0 +1,348 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.Gen;
+import org.quicktheories.core.Guidance;
+import org.quicktheories.core.NoGuidance;
+import org.quicktheories.core.Reporter;
+import org.quicktheories.core.RunStatistics;
+import org.quicktheories.core.Strategy;
+import org.quicktheories.generators.Generate;
+import org.quicktheories.generators.SourceDSL;
+
+public class CoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Strategy strategy = new Strategy(Configuration.defaultPRNG(0), 1000,
+      0, 10000, 10, mock(Reporter.class), prng -> new NoGuidance());
+
+  @Test
+  public void shouldShrinkToSmallestValueWhenShrinkingInParallel() {
+    strategy = strategy.withParallelism(4);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.smallest()).isEqualTo(1000);
+  }
+
+  @Test
+  public void shouldShrinkToSameValueInParallelAsSequentially() {
+    Gen<Integer> gen = Generate.range(-1000000, 1000000);
+    Predicate<Integer> p = i -> Math.abs(i) < 4000;
+    Integer sequential = run(gen, p).smallest();
+    strategy = strategy.withParallelism(3);
+    assertThat(run(gen, p).smallest()).isEqualTo(sequential);
+  }
+
+  @Test
+  public void shouldShrinkInParallelWithinCycleBudget() {
+    strategy = strategy.withParallelism(4).withShrinkCycles(0);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.getFalsifictions()).isEmpty();
+  }
+
+  @Test
+  public void shouldSearchOnCallingThreadWhenGuidedInParallel() {
+    Set<Thread> guidedThreads = ConcurrentHashMap.newKeySet();
+    strategy = strategy.withParallelism(4)
+        .withGuidance(prng -> new Guidance() {
+          @Override
+          public void newExample(Precursor precursor) {
+            guidedThreads.add(Thread.currentThread());
+          }
+
+          @Override
+          public void exampleExecuted() {
+          }
+
+          @Override
+          public Collection<long[]> suggestValues(int execution,
+              Precursor precursor) {
+            return Collections.emptyList();
+          }
+
+          @Override
+          public void exampleComplete() {
+          }
+        });
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(guidedThreads).containsExactly(Thread.currentThread());
+    assertThat(actual.smallest()).isEqualTo(1000);
+  }
+
+  @Test
+  public void shouldCountExamplesSkippedAsDuplicates() {
+    SearchResult<Integer> actual = run(Generate.range(0, 10), i -> true);
+    assertThat(actual.statistics().duplicatesSkipped())
+        .isEqualTo(1000 - actual.getExecutedExamples());
+    assertThat(actual.statistics().estimatedFalseSkips()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldShrinkWhenDeduplicationMemoryIsLimited() {
+    strategy = strategy.withDeduplicationMemory(1024);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.smallest()).isEqualTo(1000);
+  }
+
+  @Test
+  public void shouldEstimateFalseSkipsWhenDeduplicationMemoryIsLimited() {
+    strategy = strategy.withDeduplicationMemory(1024);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> true);
+    assertThat(actual.statistics().estimatedFalseSkips()).isGreaterThan(0);
+  }
+
+  @Test
+  public void shouldCountDuplicateShrinkCandidatesSeparately() {
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    RunStatistics stats = actual.statistics();
+    assertThat(stats.shrinkDuplicatesSkipped()).isGreaterThan(0);
+    assertThat(stats.examples() + stats.duplicatesSkipped())
+        .isLessThanOrEqualTo(1000);
+  }
+
+  @Test
+  public void shouldCountShrinkCycles() {
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    RunStatistics stats = actual.statistics();
+    assertThat(stats.shrinkCyclesAttempted()).isEqualTo(10000);
+    assertThat(stats.shrinkCyclesAccepted())
+        .isEqualTo(actual.getFalsifictions().size());
+    assertThat(stats.shrinkNanos()).isPositive();
+    assertThat(stats.totalNanos()).isGreaterThanOrEqualTo(
+        stats.shrinkNanos() + stats.generationNanos() + stats.propertyNanos());
+  }
+
+  @Test
+  public void shouldCountFailedAssumptions() {
+    SearchResult<Integer> actual = run(
+        Generate.range(0, 1000).assuming(i -> i % 2 == 0), i -> true);
+    assertThat(actual.statistics().failedAssumptions()).isPositive();
+  }
+
+  @Test
+  public void shouldMergeStatisticsOfParallelWorkers() {
+    strategy = strategy.withParallelism(4);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> true);
+    RunStatistics stats = actual.statistics();
+    assertThat(stats.examples() + stats.duplicatesSkipped()).isEqualTo(1000);
+    assertThat(stats.precursorLengthHistogram()).containsExactly(0, 1000 - stats.duplicatesSkipped());
+  }
+
+  @Test
+  public void shouldShrinkListsToSmallestValueWithStructuredShrink() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new)
+        .withShrinkCycles(2000);
+    SearchResult<List<Integer>> actual = run(
+        SourceDSL.lists().of(SourceDSL.integers().between(0, 1000))
+            .ofSizeBetween(0, 500),
+        l -> l.stream().allMatch(i -> i < 500));
+    assertThat(actual.smallest()).containsExactly(500);
+  }
+
+  @Test
+  public void shouldShrinkStringsToSmallestValueWithStructuredShrink() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new)
+        .withShrinkCycles(2000);
+    SearchResult<String> actual = run(
+        SourceDSL.strings().basicLatinAlphabet().ofLengthBetween(0, 500),
+        s -> !s.contains("x"));
+    assertThat(actual.smallest()).isEqualTo("x");
+  }
+
+  @Test
+  public void shouldShrinkListsOfStringsUsingSpans() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new)
+        .withShrinkCycles(200);
+    SearchResult<List<String>> actual = run(
+        SourceDSL.lists()
+            .of(SourceDSL.strings().basicLatinAlphabet().ofLengthBetween(0,
+                20))
+            .ofSizeBetween(0, 100),
+        l -> l.stream().noneMatch(s -> s.contains("x")));
+    assertThat(actual.smallest()).containsExactly("x");
+  }
+
+  @Test
+  public void shouldShrinkToSameValueInParallelAsSequentiallyWithStructuredShrink() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new)
+        .withShrinkCycles(2000);
+    Gen<List<Integer>> gen = SourceDSL.lists()
+        .of(SourceDSL.integers().between(0, 1000)).ofSizeBetween(0, 500);
+    Predicate<List<Integer>> p = l -> l.stream().filter(i -> i >= 100)
+        .count() < 3;
+    List<Integer> sequential = run(gen, p).smallest();
+    assertThat(sequential).containsExactly(100, 100, 100);
+    strategy = strategy.withParallelism(4);
+    assertThat(run(gen, p).smallest()).isEqualTo(sequential);
+  }
+
+  @Test
+  public void shouldOnlyAcceptSmallerValuesWithStructuredShrink() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.smallest()).isEqualTo(1000);
+    assertThat(actual.getFalsifictions()).isSorted();
+  }
+
+  @Test
+  public void shouldStopShrinkingAfterStallLimit() {
+    strategy = strategy.withShrinkStrategy(StructuredShrink::new)
+        .withShrinkStallLimit(200);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.smallest()).isEqualTo(1000);
+    assertThat(actual.statistics().shrinkCyclesAttempted()).isLessThan(1000);
+  }
+
+  @Test
+  public void shouldStopShrinkingInParallelAfterStallLimit() {
+    strategy = strategy.withParallelism(4).withShrinkStallLimit(20);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000);
+    assertThat(actual.statistics().shrinkCyclesAttempted()).isLessThan(10000);
+  }
+
+  @Test
+  public void shouldStopShrinkingWhenShrinkTimeIsSpent() {
+    strategy = strategy.withShrinkTime(100, TimeUnit.MILLISECONDS);
+    // clock advances a millisecond each time it is read
+    AtomicLong millis = new AtomicLong();
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 1000, millis::incrementAndGet);
+    assertThat(actual.statistics().shrinkCyclesAttempted()).isBetween(1, 101);
+  }
+
+  @Test
+  public void shouldNotCheckEqualValuesAgainWhenShrinkCacheIsUsed() {
+    // many candidates generate the same value
+    Gen<Integer> gen = Generate.range(0, 1000000).map(i -> i / 10000);
+    AtomicLong uncached = new AtomicLong();
+    assertThat(run(gen, countCalls(uncached, i -> i < 10)).smallest())
+        .isEqualTo(10);
+
+    strategy = strategy.withShrinkCache(100);
+    AtomicLong cached = new AtomicLong();
+    SearchResult<Integer> actual = run(gen, countCalls(cached, i -> i < 10));
+    assertThat(actual.smallest()).isEqualTo(10);
+    assertThat(cached.get()).isLessThan(uncached.get() / 10);
+    assertThat(actual.statistics().shrinkResultsReused()).isPositive();
+  }
+
+  @Test
+  public void shouldUseShrinkCacheWhenShrinkingInParallel() {
+    strategy = strategy.withParallelism(4).withShrinkCache(100);
+    SearchResult<Integer> actual = run(
+        Generate.range(0, 1000000).map(i -> i / 10000), i -> i < 10);
+    assertThat(actual.smallest()).isEqualTo(10);
+    assertThat(actual.statistics().shrinkResultsReused()).isPositive();
+  }
+
+  @Test
+  public void shouldResumeShrinkingFromCheckpoint() {
+    Path checkpoint = folder.getRoot().toPath().resolve("checkpoint");
+    Gen<Integer> gen = Generate.range(0, 1000000);
+    strategy = strategy.withShrinkCheckpoint(checkpoint).withShrinkCycles(5);
+    Integer partlyShrunk = run(gen, i -> i < 1000).smallest();
+    assertThat(partlyShrunk).isGreaterThan(1000);
+
+    strategy = strategy.resumeShrinkFrom(checkpoint).withShrinkCycles(10000);
+    SearchResult<Integer> actual = run(gen, i -> i < 1000);
+    List<Integer> falsifications = actual.getFalsifictions();
+    assertThat(falsifications.get(falsifications.size() - 1))
+        .isEqualTo(partlyShrunk);
+    assertThat(actual.smallest()).isEqualTo(1000);
+    assertThat(actual.getExecutedExamples()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldSearchAsNormalWhenCheckpointNoLongerFalsifies() {
+    Path checkpoint = folder.getRoot().toPath().resolve("checkpoint");
+    strategy = strategy.withShrinkCheckpoint(checkpoint);
+    run(Generate.range(0, 1000000), i -> i < 1000);
+
+    strategy = strategy.resumeShrinkFrom(checkpoint);
+    SearchResult<Integer> actual = run(Generate.range(0, 1000000),
+        i -> i < 2000);
+    assertThat(actual.smallest()).isEqualTo(2000);
+    assertThat(actual.getExecutedExamples()).isGreaterThan(1);
+  }
+
+  @Test
+  public void shouldOrderShorterPrecursorsFirst() {
+    Precursor a = precursor(Constraint.none(), 5);
+    Precursor b = precursor(Constraint.none(), 0, 0);
+    assertThat(Core.compareSize(a, b)).isLessThan(0);
+    assertThat(Core.compareSize(b, a)).isGreaterThan(0);
+  }
+
+  @Test
+  public void shouldOrderPrecursorsByDistanceFromShrinkTarget() {
+    Constraint c = Constraint.between(-10, 10).withShrinkPoint(2);
+    assertThat(Core.compareSize(precursor(c, 3), precursor(c, -1)))
+        .isLessThan(0);
+    assertThat(Core.compareSize(precursor(c, 2, 9), precursor(c, 3, 0)))
+        .isLessThan(0);
+    assertThat(Core.compareSize(precursor(c, 1), precursor(c, 3)))
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void shouldOrderExtremeValuesWithoutOverflow() {
+    Constraint c = Constraint.none();
+    assertThat(Core.compareSize(precursor(c, Long.MAX_VALUE),
+        precursor(c, Long.MIN_VALUE))).isLessThan(0);
+  }
+
+  private <T> SearchResult<T> run(Gen<T> gen, Predicate<T> p) {
+    return run(gen, p, () -> 0);
+  }
+
+  private <T> SearchResult<T> run(Gen<T> gen, Predicate<T> p,
+      LongSupplier clock) {
+    Core core = new Core(strategy);
+    return core.run(new Property<>(p, gen), clock);
+  }
+
+  private <T> Predicate<T> countCalls(AtomicLong calls, Predicate<T> p) {
+    return t -> {
+      calls.incrementAndGet();
+      return p.test(t);
+    };
+  }
+
+  private Precursor precursor(Constraint c, long... values) {
+    Precursor p = new Precursor();
+    for (long each : values) {
+      p.store(each, c);
+    }
+    return p;
+  }
+
+}
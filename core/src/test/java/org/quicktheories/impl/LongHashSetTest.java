@@ -0,0 +1,64 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.PseudoRandom;
+
+public class LongHashSetTest {
+
+  LongHashSet testee = new LongHashSet(4);
+
+  @Test
+  public void shouldReportNewValuesAsAdded() {
+    assertThat(testee.add(42)).isTrue();
+    assertThat(testee.add(43)).isTrue();
+  }
+
+  @Test
+  public void shouldReportDuplicateValuesAsNotAdded() {
+    testee.add(42);
+    assertThat(testee.add(42)).isFalse();
+    assertThat(testee.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStoreZero() {
+    assertThat(testee.contains(0)).isFalse();
+    assertThat(testee.add(0)).isTrue();
+    assertThat(testee.add(0)).isFalse();
+    assertThat(testee.contains(0)).isTrue();
+    assertThat(testee.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStoreExtremeValues() {
+    testee.add(Long.MIN_VALUE);
+    testee.add(Long.MAX_VALUE);
+    testee.add(-1);
+    assertThat(testee.contains(Long.MIN_VALUE)).isTrue();
+    assertThat(testee.contains(Long.MAX_VALUE)).isTrue();
+    assertThat(testee.contains(-1)).isTrue();
+    assertThat(testee.contains(1)).isFalse();
+  }
+
+  @Test
+  public void shouldBehaveAsASetWhenGrown() {
+    PseudoRandom r = Configuration.defaultPRNG(1);
+    Set<Long> expected = new HashSet<>();
+    for (int i = 0; i != 10000; i++) {
+      // narrow range so duplicates are common
+      long l = r.nextLong(-5000, 5000);
+      assertThat(testee.add(l)).isEqualTo(expected.add(l));
+    }
+    assertThat(testee.size()).isEqualTo(expected.size());
+    for (long l = -5000; l != 5000; l++) {
+      assertThat(testee.contains(l)).isEqualTo(expected.contains(l));
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+import org.quicktheories.api.Pair;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.Gen;
+import org.quicktheories.core.NoGuidance;
+import org.quicktheories.core.Reporter;
+import org.quicktheories.core.Strategy;
+import org.quicktheories.generators.Generate;
+
+public class ParallelSearchTest {
+
+  private Strategy strategy = new Strategy(Configuration.defaultPRNG(0), 1000,
+      0, 100, 10, mock(Reporter.class), prng -> new NoGuidance())
+          .withParallelism(4);
+
+  @Test
+  public void shouldRunAllExamplesWhenPropertyHolds() {
+    AtomicInteger calls = new AtomicInteger();
+    Optional<Integer> actual = falsify(Generate.range(0, Integer.MAX_VALUE),
+        i -> calls.incrementAndGet() > 0);
+    assertThat(actual).isEmpty();
+    // duplicates may be skipped
+    assertThat(calls.get()).isGreaterThan(990).isLessThanOrEqualTo(1000);
+  }
+
+  @Test
+  public void shouldFindFalsifyingValues() {
+    Optional<Integer> actual = falsify(Generate.range(0, 1000), i -> i < 900);
+    assertThat(actual.get()).isGreaterThanOrEqualTo(900);
+  }
+
+  @Test
+  public void shouldReportSameFalsificationForSameSeed() {
+    Gen<Integer> gen = Generate.range(0, Integer.MAX_VALUE);
+    for (int i = 0; i != 20; i++) {
+      assertThat(falsify(gen, v -> v % 97 != 5))
+          .isEqualTo(falsify(gen, v -> v % 97 != 5));
+    }
+  }
+
+  @Test
+  public void shouldReportDifferentFalsificationsForDifferentSeeds() {
+    Gen<Integer> gen = Generate.range(0, Integer.MAX_VALUE);
+    Optional<Integer> first = falsify(gen, v -> v % 97 != 5);
+    strategy = strategy.withFixedSeed(2);
+    assertThat(falsify(gen, v -> v % 97 != 5)).isNotEqualTo(first);
+  }
+
+  @Test(expected = AttemptsExhaustedException.class)
+  public void shouldPropagateExhaustion() {
+    falsify(Generate.range(0, 10).assuming(i -> false), i -> true);
+  }
+
+  private <T> Optional<T> falsify(Gen<T> gen,
+      Predicate<T> p) {
+    Core core = new Core(strategy);
+    Optional<Pair<Falsification<T>, PrecursorDataPair<T>>> result = core
+        .findFalsifyingValue(new Property<>(p, gen), () -> 0);
+    return result.map(r -> r._1.value());
+  }
+
+}
@@ -62,6 +62,141 @@ public class PrecursorTest {
   }
   
   
+  @Test
+  public void retainsConstraintsOfStoredValues() {
+    testee.store(5, Constraint.between(1, 10).withShrinkPoint(3));
+    testee.store(7, Constraint.between(-4, 8).withNoShrinkPoint());
+
+    assertThat(testee.minLimit()).containsExactly(1l, -4l);
+    assertThat(testee.maxLimit()).containsExactly(10l, 8l);
+    assertThat(testee.shrinkTarget()).containsExactly(3l, -4l);
+    assertThat(testee.shrinkTarget(0)).hasValue(3l);
+    assertThat(testee.shrinkTarget(1)).isEmpty();
+    assertThat(testee.hasShrinkTarget(1)).isFalse();
+  }
+
+  @Test
+  public void retainsConstraintsWhenCombining() {
+    Precursor other = new Precursor();
+    other.store(7, Constraint.between(-4, 8).withShrinkPoint(2));
+    addLongs(testee, 5);
+
+    testee.combine(other);
+
+    assertThat(testee.size()).isEqualTo(6);
+    assertThat(testee.get(5)).isEqualTo(7);
+    assertThat(testee.min(5)).isEqualTo(-4);
+    assertThat(testee.max(5)).isEqualTo(8);
+    assertThat(testee.target(5)).isEqualTo(2);
+  }
+
+  @Test
+  public void copiesValuesIntoSuppliedArray() {
+    addLongs(testee, 3);
+    long[] dest = new long[] { 9, 9, 9, 9 };
+    assertThat(testee.copyInto(dest)).containsExactly(0l, 1l, 2l, 9l);
+  }
+
+  @Test
+  public void comparesValuesWithArrays() {
+    addLongs(testee, 3);
+    assertThat(testee.valuesEqual(new long[] { 0, 1, 2 })).isTrue();
+    assertThat(testee.valuesEqual(new long[] { 0, 1, 3 })).isFalse();
+    assertThat(testee.valuesEqual(new long[] { 0, 1 })).isFalse();
+  }
+
+  @Test
+  public void copiesAreIndependentOfOriginal() {
+    addLongs(testee, 3);
+    Precursor copy = testee.copy();
+    testee.clear();
+    testee.store(9, Constraint.between(0, 10));
+
+    assertThat(copy.current()).containsExactly(0l, 1l, 2l);
+    assertThat(copy.max(0)).isEqualTo(Long.MAX_VALUE);
+    assertThat(testee.current()).containsExactly(9l);
+  }
+
+  @Test
+  public void producesBigEndianBytes() {
+    testee.store(0x0102030405060708l, Constraint.none());
+    assertThat(testee.bytes()).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+  }
+
+  @Test
+  public void producesSameHashForSameValues() {
+    Precursor other = new Precursor();
+    addLongs(testee, 40);
+    addLongs(other, 40);
+    assertThat(testee.hash()).isEqualTo(other.hash());
+  }
+
+  @Test
+  public void producesDifferentHashesForDifferentValues() {
+    Precursor other = new Precursor();
+    testee.store(1, Constraint.none());
+    testee.store(2, Constraint.none());
+    other.store(2, Constraint.none());
+    other.store(1, Constraint.none());
+    assertThat(testee.hash()).isNotEqualTo(other.hash());
+  }
+
+  @Test
+  public void producesDifferentHashesForDifferentLengths() {
+    Precursor other = new Precursor();
+    testee.store(0, Constraint.none());
+    assertThat(testee.hash()).isNotEqualTo(other.hash());
+  }
+
+  @Test
+  public void recordsNestedSpansInOrderTheyEnd() {
+    testee.startSpan();
+    testee.store(2, Constraint.none());
+    testee.startSpan();
+    testee.store(5, Constraint.none());
+    testee.store(6, Constraint.none());
+    testee.endSpan();
+    testee.endSpan();
+
+    assertThat(testee.spanCount()).isEqualTo(2);
+    assertThat(span(0)).containsExactly(1, 3);
+    assertThat(span(1)).containsExactly(0, 3);
+  }
+
+  @Test
+  public void doesNotRecordEmptySpans() {
+    testee.startSpan();
+    testee.endSpan();
+    testee.endSpan();
+    assertThat(testee.spanCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void offsetsSpansOfCombinedPrecursors() {
+    Precursor other = new Precursor();
+    other.startSpan();
+    other.store(1, Constraint.none());
+    other.endSpan();
+    testee.store(0, Constraint.none());
+    testee.combine(other);
+
+    assertThat(testee.spanCount()).isEqualTo(1);
+    assertThat(span(0)).containsExactly(1, 2);
+  }
+
+  @Test
+  public void discardsSpansWhenCleared() {
+    testee.startSpan();
+    testee.store(1, Constraint.none());
+    testee.endSpan();
+    testee.clear();
+    assertThat(testee.spanCount()).isEqualTo(0);
+  }
+
+  private int[] span(int i) {
+    return new int[] { testee.spanStart(i), testee.spanEnd(i) };
+  }
+
   private void addLongs(Precursor p, int n) {
     for (int i = 0; i != n; i++) {
       p.store(i, Constraint.none());
@@ -0,0 +1,95 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class RotatingBloomFilterTest {
+
+  RotatingBloomFilter testee = new RotatingBloomFilter(4096);
+
+  @Test
+  public void shouldReportNewValuesAsAdded() {
+    assertThat(testee.add(42)).isTrue();
+    assertThat(testee.add(43)).isTrue();
+  }
+
+  @Test
+  public void shouldReportRecentDuplicatesAsNotAdded() {
+    for (long i = 0; i != 500; i++) {
+      testee.add(i);
+    }
+    for (long i = 0; i != 500; i++) {
+      assertThat(testee.add(i)).isFalse();
+    }
+  }
+
+  @Test
+  public void shouldNotExceedMemoryLimit() {
+    assertThat(testee.sizeInBytes()).isLessThanOrEqualTo(4096);
+    assertThat(new RotatingBloomFilter(5000).sizeInBytes())
+        .isLessThanOrEqualTo(5000);
+  }
+
+  @Test
+  public void shouldForgetOldestValuesOnceFull() {
+    for (long i = 0; i != 100000; i++) {
+      testee.add(i);
+    }
+    int remembered = 0;
+    for (long i = 0; i != 1000; i++) {
+      if (!testee.add(i)) {
+        remembered++;
+      }
+    }
+    assertThat(remembered).isLessThan(100);
+  }
+
+  @Test
+  public void shouldSizeForRotationWithLargeMemoryLimits() {
+    // a 1 GiB limit gives 2^26 words per filter, whose bits overflow an int.
+    // Filters that large cannot be allocated in the test heap.
+    int words = 1 << 26;
+    assertThat(RotatingBloomFilter.capacityFor(words))
+        .isEqualTo(words * 4);
+    assertThat(RotatingBloomFilter.capacityFor(Integer.MAX_VALUE))
+        .isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void shouldEstimateFalseSkipsCloseToThoseObserved() {
+    int falseSkips = 0;
+    for (long i = 0; i != 100000; i++) {
+      if (!testee.add(i * 0x9E3779B97F4A7C15L)) {
+        falseSkips++;
+      }
+    }
+    assertThat(falseSkips).isGreaterThan(0);
+    assertThat(testee.estimatedFalseSkips()).isCloseTo(falseSkips,
+        within(falseSkips * 0.5));
+  }
+
+  @Test
+  public void shouldNotCountRealDuplicatesAsFalseSkips() {
+    int falseSkips = 0;
+    for (long i = 0; i != 1000; i++) {
+      if (!testee.add(i * 0x9E3779B97F4A7C15L)) {
+        falseSkips++;
+      }
+      for (int j = 0; j != 100; j++) {
+        testee.add(i * 0x9E3779B97F4A7C15L);
+      }
+    }
+    assertThat(testee.estimatedFalseSkips()).isLessThan(falseSkips + 5);
+  }
+
+  @Test
+  public void shouldEstimateNoFalseSkipsForExactSet() {
+    VisitedValues exact = VisitedValues.forMemoryLimit(0);
+    exact.add(1);
+    exact.add(1);
+    assertThat(exact.estimatedFalseSkips()).isEqualTo(0);
+  }
+
+}
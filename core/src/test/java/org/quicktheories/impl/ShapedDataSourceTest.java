@@ -28,4 +28,54 @@ public class ShapedDataSourceTest {
     assertThat(testee.capturedPrecursor().current()).containsExactly(value._1, value._2);
   }
 
+  @Test
+  public void discardsCapturedPrecursorWhenReset() {
+    Gen<Long> gen = Generate.longRange(0l, 100l);
+    gen.generate(testee);
+    gen.generate(testee);
+    testee.reset(new long[] { 42 }, 100);
+
+    assertThat(testee.capturedPrecursor().isEmpty()).isTrue();
+    assertThat(gen.generate(testee)).isEqualTo(42l);
+    assertThat(testee.capturedPrecursor().current()).containsExactly(42l);
+  }
+
+  @Test
+  public void resetsRemainingTries() {
+    Gen<Long> gen = Generate.longRange(0l, 100l).assuming(l -> l == 7);
+    for (int i = 0; i != 3; i++) {
+      PrecursorDataPair<Long> pair = testee.generate(gen, new long[] { 1, 7 },
+          2);
+      assertThat(pair.value()).isEqualTo(7l);
+      assertThat(pair.failedAssumptions()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void retainedPairsAreUnaffectedByReuse() {
+    Gen<Long> gen = Generate.longRange(0l, 100l);
+    PrecursorDataPair<Long> retained = testee
+        .generate(gen, new long[] { 3 }, 100).retain();
+    testee.generate(gen, new long[] { 4 }, 100);
+
+    assertThat(retained.precursor().current()).containsExactly(3l);
+  }
+
+  @Test
+  public void recordsSpansOfCollectionElements() {
+    Gen<int[]> gen = Generate.intArrays(Generate.range(2, 2),
+        Generate.range(0, 10).assuming(i -> i != 3));
+    Precursor p = testee.generate(gen, new long[] { 2, 3, 4, 5 }, 100)
+        .precursor();
+
+    // the 3 is discarded by the assumption
+    assertThat(p.current()).containsExactly(2, 4, 5);
+    // two elements then the array
+    assertThat(p.spanCount()).isEqualTo(3);
+    assertThat(p.spanStart(0)).isEqualTo(1);
+    assertThat(p.spanStart(1)).isEqualTo(2);
+    assertThat(p.spanStart(2)).isEqualTo(0);
+    assertThat(p.spanEnd(2)).isEqualTo(3);
+  }
+
 }
@@ -0,0 +1,76 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShrinkCheckpointTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldReadNothingWhenNoCheckpointWritten() {
+    assertThat(ShrinkCheckpoint.read(file())).isEmpty();
+  }
+
+  @Test
+  public void shouldReadValuesAndConstraintsWritten() {
+    Precursor p = new Precursor();
+    p.store(3, Constraint.between(-10, 10).withShrinkPoint(2));
+    p.store(Long.MIN_VALUE, Constraint.none().withNoShrinkPoint());
+    ShrinkCheckpoint.write(file(), p);
+
+    Precursor actual = ShrinkCheckpoint.read(file()).get();
+    assertThat(actual.current()).containsExactly(3, Long.MIN_VALUE);
+    assertThat(actual.minLimit()).containsExactly(-10, Long.MIN_VALUE);
+    assertThat(actual.maxLimit()).containsExactly(10, Long.MAX_VALUE);
+    assertThat(actual.shrinkTarget(0)).hasValue(2);
+    assertThat(actual.hasShrinkTarget(1)).isFalse();
+  }
+
+  @Test
+  public void shouldTreatCorruptCheckpointAsAbsent() throws IOException {
+    Files.write(file(), new byte[] { 1, 2, 3 });
+    assertThat(ShrinkCheckpoint.read(file())).isEmpty();
+  }
+
+  @Test
+  public void shouldWriteImprovementsAtMostOncePerInterval() {
+    AtomicLong millis = new AtomicLong();
+    ShrinkCheckpoint testee = new ShrinkCheckpoint(Optional.of(file()));
+    testee.start(precursor(9), millis::get);
+    assertThat(ShrinkCheckpoint.read(file()).get().current()).containsExactly(9);
+
+    millis.set(ShrinkCheckpoint.INTERVAL_MILLIS - 1);
+    testee.improved(precursor(8), millis::get);
+    assertThat(ShrinkCheckpoint.read(file()).get().current()).containsExactly(9);
+
+    millis.set(ShrinkCheckpoint.INTERVAL_MILLIS);
+    testee.improved(precursor(7), millis::get);
+    assertThat(ShrinkCheckpoint.read(file()).get().current()).containsExactly(7);
+
+    testee.improved(precursor(6), millis::get);
+    testee.finish(millis::get);
+    assertThat(ShrinkCheckpoint.read(file()).get().current()).containsExactly(6);
+  }
+
+  private Path file() {
+    return folder.getRoot().toPath().resolve("checkpoint");
+  }
+
+  private Precursor precursor(long value) {
+    Precursor p = new Precursor();
+    p.store(value, Constraint.between(0, 10));
+    return p;
+  }
+
+}
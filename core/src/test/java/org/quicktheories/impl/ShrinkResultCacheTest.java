@@ -0,0 +1,49 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class ShrinkResultCacheTest {
+
+  ShrinkResultCache<Object> testee = new ShrinkResultCache<>(2);
+
+  @Test
+  public void shouldNotContainUnknownValues() {
+    assertThat(testee.contains("a")).isFalse();
+  }
+
+  @Test
+  public void shouldReturnResultsForEqualValues() {
+    Optional<Falsification<Object>> falsified = Optional
+        .of(Falsification.fromProperty(Arrays.asList(1, 2)));
+    testee.put(Arrays.asList(1, 2), falsified);
+    testee.put("a", Optional.empty());
+    assertThat(testee.contains(Arrays.asList(1, 2))).isTrue();
+    assertThat(testee.get(Arrays.asList(1, 2))).isSameAs(falsified);
+    assertThat(testee.get("a")).isEmpty();
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResult() {
+    testee.put("a", Optional.empty());
+    testee.put("b", Optional.empty());
+    testee.get("a");
+    testee.put("c", Optional.empty());
+    assertThat(testee.size()).isEqualTo(2);
+    assertThat(testee.contains("a")).isTrue();
+    assertThat(testee.contains("b")).isFalse();
+  }
+
+  @Test
+  public void shouldRememberNothingWhenSizeIsZero() {
+    testee = new ShrinkResultCache<>(0);
+    testee.put("a", Optional.empty());
+    assertThat(testee.contains("a")).isFalse();
+    assertThat(testee.size()).isEqualTo(0);
+  }
+
+}
@@ -0,0 +1,77 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class StatisticsTest {
+
+  Statistics testee = new Statistics(new LongHashSet());
+
+  @Test
+  public void shouldBucketPrecursorLengthsByPowerOfTwo() {
+    assertThat(Statistics.bucketFor(0)).isEqualTo(0);
+    assertThat(Statistics.bucketFor(1)).isEqualTo(1);
+    assertThat(Statistics.bucketFor(2)).isEqualTo(2);
+    assertThat(Statistics.bucketFor(3)).isEqualTo(2);
+    assertThat(Statistics.bucketFor(4)).isEqualTo(3);
+    assertThat(Statistics.bucketFor(Integer.MAX_VALUE)).isEqualTo(31);
+  }
+
+  @Test
+  public void shouldTrimEmptyBucketsFromHistogram() {
+    testee.executed(0);
+    testee.executed(5);
+    testee.executed(6);
+    assertThat(testee.precursorLengthHistogram()).containsExactly(1, 0, 0, 2);
+  }
+
+  @Test
+  public void shouldMergeCountsButNotElapsedTime() {
+    Statistics worker = new Statistics(new LongHashSet());
+    worker.generated(2);
+    worker.generationTimed(10);
+    worker.executed(1);
+    worker.executionTimed(20);
+    worker.duplicateSkipped();
+    worker.shrinkDuplicateSkipped();
+    worker.totalTime(100);
+    testee.generated(1);
+    testee.generationTimed(5);
+    testee.totalTime(50);
+
+    testee.merge(worker);
+
+    assertThat(testee.examples()).isEqualTo(1);
+    assertThat(testee.duplicatesSkipped()).isEqualTo(1);
+    assertThat(testee.shrinkDuplicatesSkipped()).isEqualTo(1);
+    assertThat(testee.failedAssumptions()).isEqualTo(3);
+    assertThat(testee.generationNanos()).isEqualTo(15);
+    assertThat(testee.propertyNanos()).isEqualTo(20);
+    assertThat(testee.totalNanos()).isEqualTo(50);
+    assertThat(testee.precursorLengthHistogram()).containsExactly(0, 1);
+  }
+
+  @Test
+  public void shouldScaleSampledTimesToAllExamples() {
+    for (int i = 0; i != 16; i++) {
+      testee.generated(0);
+      testee.executed(1);
+    }
+    testee.generationTimed(100);
+    testee.executionTimed(30);
+    testee.generationTimed(100);
+    assertThat(testee.generationNanos()).isEqualTo(1600);
+    assertThat(testee.propertyNanos()).isEqualTo(480);
+  }
+
+  @Test
+  public void shouldCalculateExamplesPerSecondFromSearchTime() {
+    testee.executed(1);
+    testee.executed(1);
+    testee.shrinkTime(1_000_000_000);
+    testee.totalTime(2_000_000_000);
+    assertThat(testee.examplesPerSecond()).isEqualTo(2);
+  }
+
+}
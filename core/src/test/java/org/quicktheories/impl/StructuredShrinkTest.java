@@ -0,0 +1,131 @@
+package org.quicktheories.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.quicktheories.core.Configuration;
+import org.quicktheories.core.PseudoRandom;
+
+public class StructuredShrinkTest {
+
+  private final PseudoRandom      prng   = Configuration.defaultPRNG(0);
+  private final StructuredShrink  testee = new StructuredShrink();
+  private final Constraint        c      = Constraint.between(0, 1000);
+
+  @Test
+  public void shouldFirstTryDeletingHalfTheValues() {
+    assertThat(testee.shrink(prng, precursor(1, 2, 3, 4)))
+        .containsExactly(3, 4);
+  }
+
+  @Test
+  public void shouldTryLoweringCountOfDeletedValues() {
+    Precursor p = precursor(3, 7, 8, 9);
+    assertThat(testee.shrink(prng, p)).containsExactly(8, 9);
+    assertThat(testee.shrink(prng, p)).containsExactly(1, 7);
+    assertThat(testee.shrink(prng, p)).containsExactly(3, 7);
+  }
+
+  @Test
+  public void shouldTryTargetBeforeBinarySearchingValue() {
+    Precursor p = precursor(100);
+    assertThat(testee.shrink(prng, p)).isEmpty();
+    assertThat(testee.shrink(prng, p)).containsExactly(0);
+    assertThat(testee.shrink(prng, p)).containsExactly(50);
+    assertThat(testee.shrink(prng, p)).containsExactly(75);
+  }
+
+  @Test
+  public void shouldContinueSearchingBelowAcceptedValue() {
+    Precursor p = precursor(100);
+    testee.shrink(prng, p);
+    testee.shrink(prng, p);
+    testee.shrink(prng, p);
+    assertThat(testee.shrink(prng, precursor(50))).containsExactly(25);
+  }
+
+  @Test
+  public void shouldContinueFromAcceptedCandidateRatherThanLastReturned() {
+    Precursor p = precursor(100);
+    testee.shrink(prng, p);
+    testee.shrink(prng, p);
+    assertThat(testee.shrink(prng, p)).containsExactly(50);
+    assertThat(testee.shrink(prng, p)).containsExactly(75);
+    testee.accepted(2);
+    assertThat(testee.shrink(prng, precursor(50))).containsExactly(25);
+  }
+
+  @Test
+  public void shouldSwapAdjacentValuesToMoveSmallerValuesFirst() {
+    Precursor p = precursor(0, 5, 0, 0);
+    // 6 deletions, 1 block set to target and 3 steps searching for the 5
+    for (int i = 0; i != 10; i++) {
+      testee.shrink(prng, p);
+    }
+    assertThat(testee.shrink(prng, p)).containsExactly(0, 0, 5, 0);
+  }
+
+  @Test
+  public void shouldRestartPassesAfterRandomStepsWhenStalled() {
+    Precursor p = precursor(0);
+    assertThat(testee.shrink(prng, p)).isEmpty();
+    for (int i = 0; i != StructuredShrink.RANDOM_STEPS; i++) {
+      assertThat(testee.shrink(prng, p)).containsExactly(0);
+    }
+    assertThat(testee.shrink(prng, p)).isEmpty();
+  }
+
+  @Test
+  public void shouldOnlyAcceptSmallerPrecursors() {
+    assertThat(testee.accepts(precursor(1), precursor(2))).isTrue();
+    assertThat(testee.accepts(precursor(2), precursor(2))).isFalse();
+    assertThat(testee.accepts(precursor(0, 0), precursor(9))).isFalse();
+  }
+
+  @Test
+  public void shouldDeleteSpansAlongWithLoweringTheirCount() {
+    Precursor p = list(new long[] { 5, 6 }, new long[] { 7 });
+    // the whole list, then both elements, then each element
+    assertThat(testee.shrink(prng, p)).isEmpty();
+    assertThat(testee.shrink(prng, p)).containsExactly(0);
+    assertThat(testee.shrink(prng, p)).containsExactly(1, 7);
+    assertThat(testee.shrink(prng, p)).containsExactly(1, 5, 6);
+  }
+
+  @Test
+  public void shouldCopySimplerSpanOverAdjacentSpan() {
+    Precursor p = list(new long[] { 5, 6 }, new long[] { 5, 2 });
+    List<long[]> candidates = new ArrayList<>();
+    for (int i = 0; i != 100; i++) {
+      candidates.add(testee.shrink(prng, p));
+    }
+    assertThat(candidates).contains(new long[] { 2, 5, 2, 5, 2 });
+  }
+
+  private Precursor list(long[]... elements) {
+    Precursor p = new Precursor();
+    p.startSpan();
+    p.store(elements.length, c);
+    for (long[] element : elements) {
+      p.startSpan();
+      for (long each : element) {
+        p.store(each, c);
+      }
+      p.endSpan();
+    }
+    p.endSpan();
+    return p;
+  }
+
+  private Precursor precursor(long... values) {
+    Precursor p = new Precursor();
+    for (long each : values) {
+      p.store(each, c);
+    }
+    return p;
+  }
+
+}
@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -19,6 +20,8 @@ import java.util.function.LongSupplier;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.quicktheories.core.Configuration;
@@ -27,6 +30,7 @@ import org.quicktheories.core.Guidance;
 import org.quicktheories.core.NoGuidance;
 import org.quicktheories.core.PseudoRandom;
 import org.quicktheories.core.Reporter;
+import org.quicktheories.core.RunStatistics;
 import org.quicktheories.core.Strategy;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -103,6 +107,28 @@ public class TheoryRunnerTest {
         anySmallerValues(), any());
   }
 
+  @Test
+  public void shouldReportStatisticsBeforeFalsification() {
+    testee = makeTesteeFor(arbitrary().pick(1, 2, 3, 4, 5));
+    testee.check(i -> i <= 3);
+    InOrder inOrder = inOrder(reporter);
+    inOrder.verify(reporter).statistics(any(RunStatistics.class));
+    inOrder.verify(reporter).falsification(anyLong(), anyInt(), eq(4),
+        anySmallerValues(), any());
+  }
+
+  @Test
+  public void shouldReportStatisticsWhenPropertyHolds() {
+    testee = makeTesteeFor(arbitrary().pick(1, 2, 3, 4, 5));
+    testee.check(i -> true);
+    ArgumentCaptor<RunStatistics> captor = ArgumentCaptor
+        .forClass(RunStatistics.class);
+    verify(reporter).statistics(captor.capture());
+    assertThat(captor.getValue().examples()).isEqualTo(5);
+    assertThat(captor.getValue().duplicatesSkipped()).isEqualTo(95);
+    assertThat(captor.getValue().shrinkCyclesAttempted()).isEqualTo(0);
+  }
+
   @Test
   public void shouldReportInitialSeed() {
     long seed = 42;
@@ -122,14 +148,14 @@ public class TheoryRunnerTest {
 
   @Test
   public void shouldReportNumberOfFoundExamplesWhenValuesExhausted() {
-    int numberOfExamples = 3;
+    int numberOfExamples = 100;
     strategy = new Strategy(Configuration.defaultPRNG(0), numberOfExamples, 0, 0, 10,
         reporter, guidance);
     testee = makeTesteeFor(
         arbitrary().pick(1, 2, 1, 1, 1).assuming(
         i -> i == 2));
     testee.check(i -> true);
-    verify(reporter, times(1)).valuesExhausted(0);
+    verify(reporter, times(1)).valuesExhausted(1);
   }
 
   @Test
@@ -137,7 +163,7 @@ public class TheoryRunnerTest {
     testee = makeTesteeFor(
         arbitrary().pick(0, 1, 2, 3, 4, 5));
     testee.check(i -> i != 4);
-    verify(reporter, times(1)).falsification(anyLong(), eq(6), anyInt(),
+    verify(reporter, times(1)).falsification(anyLong(), eq(3), anyInt(),
         anySmallerValues(), any());
 
   }
@@ -1,42 +1,144 @@
 package org.quicktheories.coverage;
 
-import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import sun.quicktheories.coverage.CodeCoverageStore;
 
 public class Agent {
-  
-  private static Predicate<String> shouldTransform = startsWith("org/quicktheories/")
+
+  /**
+   * Agent argument requesting that edge hit counts are recorded as well as
+   * block visits
+   */
+  public static final String EDGES = "edges";
+
+  /**
+   * System property giving the directory instrumented classes are cached in
+   * between JVMs. Classes are not cached unless it is set. The directory is
+   * created readable only by the current user, and is not used if others can
+   * write to it.
+   */
+  public static final String CACHE = "QT_COVERAGE_CACHE";
+
+  /**
+   * System property giving comma separated globs of the classes to
+   * instrument (e.g. com.example.*), or "local" to instrument only classes
+   * found in directories rather than jars on the class path. Defaults to all
+   * classes.
+   */
+  public static final String INCLUDE = "QT_COVERAGE_INCLUDE";
+
+  /**
+   * System property giving comma separated globs of classes not to
+   * instrument, in addition to the JDK and QuickTheories itself
+   */
+  public static final String EXCLUDE = "QT_COVERAGE_EXCLUDE";
+
+  /**
+   * System property that, when "true", delays instrumenting each class with
+   * probes until it is first reached, rather than when it is loaded. Coverage
+   * in a class is recorded from the example after the one that first reaches
+   * it.
+   */
+  public static final String LAZY = "QT_COVERAGE_LAZY";
+
+  /**
+   * Value of {@link #INCLUDE} selecting only the project's own classes
+   */
+  public static final String LOCAL = "local";
+
+  private static Predicate<String> neverTransform = startsWith("org/quicktheories/")
                                                 .or(startsWith("jdk/"))
                                                 .or(startsWith("java/"))
                                                 .or(startsWith("javafx/"))
                                                 .or(startsWith("com/sun/"))
-                                                .or(startsWith("sun/"))
-                                                .negate();
+                                                .or(startsWith("sun/"));
 
   public static void agentmain(String agentArgs, Instrumentation inst) {
     System.out.println("Coverage agent installed");
 
-    ClassFileTransformer transformer = new CoverageTransformer(shouldTransform);
+    Predicate<String> shouldTransform = neverTransform.negate()
+        .and(ClassFilters.create(System.getProperty(INCLUDE),
+            System.getProperty(EXCLUDE), ClassLoader.getSystemClassLoader()));
+
+    boolean lazy = Boolean.getBoolean(LAZY);
+    CoverageTransformer transformer = new CoverageTransformer(shouldTransform,
+        EDGES.equals(agentArgs), lazy, pickCache());
 
     inst.addTransformer(transformer, true);
 
-    Arrays.stream(inst.getAllLoadedClasses())
+    Class<?>[] all = inst.getAllLoadedClasses();
+    List<Class<?>> loaded = Arrays.stream(all)
         .filter(c -> inst.isModifiableClass(c)
             && !c.isSynthetic()
             && shouldTransform.test(c.getName()))
-        .forEach(t -> {
-          try {
-            inst.retransformClasses(t);
-          } catch (Throwable e) {
-            System.err.println("Error while transforming " + t);
-            e.printStackTrace();
-          }
-        });
+        .collect(Collectors.toList());
+
+    if (lazy) {
+      CodeCoverageStore.registerLazyInstrumenter(() -> {
+        List<Class<?>> reached = transformer.takeReachedClasses();
+        if (!reached.isEmpty()) {
+          retransform(inst, transformer, reached);
+        }
+      });
+    }
+
+    transformer.prepareRetransform(loaded,
+        Runtime.getRuntime().availableProcessors());
+    try {
+      retransform(inst, transformer, loaded);
+    } finally {
+      transformer.discardPrepared();
+    }
+
+  }
 
+  /**
+   * Retransforms classes in as few batches as possible. A class that cannot
+   * be retransformed fails its whole batch, so failed batches are split until
+   * the failing classes are found, which are then retransformed from the
+   * bytes supplied by the JVM.
+   */
+  private static void retransform(Instrumentation inst,
+      CoverageTransformer transformer, List<Class<?>> classes) {
+    try {
+      inst.retransformClasses(classes.toArray(new Class<?>[classes.size()]));
+    } catch (Throwable e) {
+      if (classes.size() > 1) {
+        int half = classes.size() / 2;
+        retransform(inst, transformer, classes.subList(0, half));
+        retransform(inst, transformer, classes.subList(half, classes.size()));
+      } else {
+        retransformUnprepared(inst, transformer, classes.get(0));
+      }
+    }
+  }
+
+  private static void retransformUnprepared(Instrumentation inst,
+      CoverageTransformer transformer, Class<?> t) {
+    transformer.discardPrepared(t);
+    try {
+      inst.retransformClasses(t);
+    } catch (Throwable e) {
+      System.err.println("Error while transforming " + t);
+      e.printStackTrace();
+    }
   }
   
+  private static Optional<TransformedClassCache> pickCache() {
+    final String directory = System.getProperty(CACHE);
+    if (directory == null) {
+      return Optional.empty();
+    }
+    return TransformedClassCache.open(Paths.get(directory));
+  }
+
   private static Predicate<String> startsWith(String prefix) {
     return s -> s.replace('.',  '/').startsWith(prefix);
   }
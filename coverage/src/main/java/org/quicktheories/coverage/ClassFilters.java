@@ -0,0 +1,119 @@
+package org.quicktheories.coverage;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the filter deciding which classes the coverage agent instruments.
+ *
+ * Class names may be given in either internal (a/b/C) or binary (a.b.C) form.
+ */
+final class ClassFilters {
+
+  private ClassFilters() {
+  }
+
+  /**
+   * Returns a filter accepting classes that match the include setting but not
+   * the exclude setting.
+   *
+   * @param include
+   *          comma separated globs, {@link Agent#LOCAL} or null to include all
+   *          classes
+   * @param exclude
+   *          comma separated globs, or null to exclude none
+   * @param loader
+   *          loader used to find the location of classes for
+   *          {@link Agent#LOCAL}
+   * @return filter
+   */
+  static Predicate<String> create(final String include, final String exclude,
+      final ClassLoader loader) {
+    final Predicate<String> included;
+    if (isBlank(include)) {
+      included = s -> true;
+    } else if (include.trim().equals(Agent.LOCAL)) {
+      included = local(loader);
+    } else {
+      included = globs(include);
+    }
+    if (isBlank(exclude)) {
+      return included;
+    }
+    return included.and(globs(exclude).negate());
+  }
+
+  /**
+   * Returns a filter accepting classes matching any of the comma separated
+   * globs. A '*' matches any sequence of characters, including package
+   * separators, and a '?' matches any single character.
+   *
+   * @param globs
+   *          globs to match
+   * @return filter
+   */
+  static Predicate<String> globs(final String globs) {
+    return Arrays.stream(globs.split(",")).map(String::trim)
+        .filter(s -> !s.isEmpty()).map(ClassFilters::glob)
+        .reduce(s -> false, Predicate::or);
+  }
+
+  private static Predicate<String> glob(final String glob) {
+    final StringBuilder regex = new StringBuilder();
+    final StringBuilder literal = new StringBuilder();
+    for (final char c : glob.replace('/', '.').toCharArray()) {
+      if ((c == '*') || (c == '?')) {
+        regex.append(Pattern.quote(literal.toString()));
+        literal.setLength(0);
+        regex.append(c == '*' ? ".*" : ".");
+      } else {
+        literal.append(c);
+      }
+    }
+    regex.append(Pattern.quote(literal.toString()));
+    final Pattern pattern = Pattern.compile(regex.toString());
+    return s -> pattern.matcher(s.replace('/', '.')).matches();
+  }
+
+  /**
+   * Returns a filter accepting classes in packages that the loader finds in a
+   * directory rather than a jar, which on a build tool's or IDE's class path
+   * are the project's own classes and tests. The result is remembered for
+   * each package.
+   *
+   * @param loader
+   *          loader to find classes with
+   * @return filter
+   */
+  static Predicate<String> local(final ClassLoader loader) {
+    final Map<String, Boolean> packages = new ConcurrentHashMap<>();
+    return s -> {
+      final String name = s.replace('.', '/');
+      final String pkg = name.substring(0, Math.max(name.lastIndexOf('/'), 0));
+      final Boolean previous = packages.get(pkg);
+      if (previous != null) {
+        return previous;
+      }
+      // not computeIfAbsent, as finding the class may load and so transform
+      // other classes
+      final boolean local = isInDirectory(loader, name);
+      packages.putIfAbsent(pkg, local);
+      return local;
+    };
+  }
+
+  private static boolean isInDirectory(final ClassLoader loader,
+      final String name) {
+    final URL url = loader.getResource(name + ".class");
+    return (url != null) && "file".equals(url.getProtocol());
+  }
+
+  private static boolean isBlank(final String s) {
+    return (s == null) || s.trim().isEmpty();
+  }
+
+}
@@ -31,12 +31,10 @@
  */
 package org.quicktheories.coverage;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
-import org.objectweb.asm.Opcodes;
 
 
 /**
@@ -46,30 +44,78 @@ import org.objectweb.asm.Opcodes;
  * @author Eric Bruneton
  *
  *         Modified to match behaviour of default ClassWriter and cache already
- *         calculated values
+ *         calculated values. The common super classes used by the written
+ *         class are recorded, so that a cached copy of it can be checked
+ *         against the current class hierarchy. Type information can be
+ *         shared between writers, so each class is read and parsed once.
  */
 public class ComputeClassWriter extends ClassWriter {
 
   private final ClassByteArraySource bytes;
+  private final TypeHierarchy        hierarchy;
   private final Map<String, String>  cache;
+  private final Map<String, String>  used = new LinkedHashMap<>();
 
   public ComputeClassWriter(final ClassByteArraySource bytes,
       final Map<String, String> cache, final int flags) {
+    this(bytes, new TypeHierarchy(), cache, flags);
+  }
+
+  ComputeClassWriter(final ClassByteArraySource bytes,
+      final TypeHierarchy hierarchy, final Map<String, String> cache,
+      final int flags) {
     super(flags);
     this.bytes = bytes;
+    this.hierarchy = hierarchy;
     this.cache = cache;
   }
 
   @Override
   protected String getCommonSuperClass(final String type1, final String type2) {
+    final String result = commonSuperClass(type1, type2);
+    this.used.put(type1 + ";" + type2, result);
+    return result;
+  }
+
+  /**
+   * Returns the common super classes used to write the class, keyed by the
+   * two types separated by a ';'
+   *
+   * @return map of types to their common super class
+   */
+  public Map<String, String> usedCommonSuperClasses() {
+    return this.used;
+  }
+
+  /**
+   * Returns true if the given common super classes match those of the current
+   * class hierarchy
+   *
+   * @param commonSuperClasses
+   *          map of types separated by ';' to their common super class
+   * @return true if all match
+   */
+  public boolean agreesWith(final Map<String, String> commonSuperClasses) {
+    for (final Map.Entry<String, String> each : commonSuperClasses.entrySet()) {
+      final int split = each.getKey().indexOf(';');
+      final String type1 = each.getKey().substring(0, split);
+      final String type2 = each.getKey().substring(split + 1);
+      if (!commonSuperClass(type1, type2).equals(each.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String commonSuperClass(final String type1, final String type2) {
     final String key = type1 + "!_!" + type2;
     final String previous = this.cache.get(key);
     if (previous != null) {
       return previous;
     }
 
-    final ClassReader info1 = typeInfo(type1);
-    final ClassReader info2 = typeInfo(type2);
+    final TypeHierarchy.Type info1 = typeInfo(type1);
+    final TypeHierarchy.Type info2 = typeInfo(type2);
 
     final String result = getCommonSuperClass(type1, info1, type2, info2);
     this.cache.put(key, result);
@@ -78,12 +124,13 @@ public class ComputeClassWriter extends ClassWriter {
   }
 
   private String getCommonSuperClass(final String type1,
-      final ClassReader info1, final String type2, final ClassReader info2) {
-    if (isInterface(info1)) {
+      final TypeHierarchy.Type info1, final String type2,
+      final TypeHierarchy.Type info2) {
+    if (info1.isInterface()) {
       if (typeImplements(type2, info2, type1)) {
         return type1;
       } else {
-        if (isInterface(info2)) {
+        if (info2.isInterface()) {
           if (typeImplements(type1, info1, type2)) {
             return type2;
           } else {
@@ -119,28 +166,24 @@ public class ComputeClassWriter extends ClassWriter {
 
   }
 
-  private static boolean isInterface(final ClassReader info1) {
-    return (info1.getAccess() & Opcodes.ACC_INTERFACE) != 0;
-  }
-
   /**
    * Returns the internal names of the ancestor classes of the given type.
    *
    * @param type
    *          the internal name of a class or interface.
    * @param info
-   *          the ClassReader corresponding to 'type'.
+   *          the hierarchy of 'type'.
    * @return a StringBuilder containing the ancestor classes of 'type',
    *         separated by ';'. The returned string has the following format:
    *         ";type1;type2 ... ;typeN", where type1 is 'type', and typeN is a
    *         direct subclass of Object. If 'type' is Object, the returned string
    *         is empty.
    */
-  private StringBuilder typeAncestors(String type, ClassReader info) {
+  private StringBuilder typeAncestors(String type, TypeHierarchy.Type info) {
     final StringBuilder b = new StringBuilder();
     while (!"java/lang/Object".equals(type)) {
       b.append(';').append(type);
-      type = info.getSuperName();
+      type = info.superName();
       info = typeInfo(type);
     }
     return b;
@@ -152,15 +195,16 @@ public class ComputeClassWriter extends ClassWriter {
    * @param type
    *          the internal name of a class or interface.
    * @param info
-   *          the ClassReader corresponding to 'type'.
+   *          the hierarchy of 'type'.
    * @param itf
    *          the internal name of a interface.
    * @return true if 'type' implements directly or indirectly 'itf'
    */
-  private boolean typeImplements(String type, ClassReader info, final String itf) {
+  private boolean typeImplements(String type, TypeHierarchy.Type info,
+      final String itf) {
     final String cleanItf = itf.replace(".", "/");
     while (!"java/lang/Object".equals(type)) {
-      final String[] itfs = info.getInterfaces();
+      final String[] itfs = info.interfaces();
       for (final String itf2 : itfs) {
         if (itf2.equals(cleanItf)) {
           return true;
@@ -171,24 +215,20 @@ public class ComputeClassWriter extends ClassWriter {
           return true;
         }
       }
-      type = info.getSuperName();
+      type = info.superName();
       info = typeInfo(type);
     }
     return false;
   }
 
   /**
-   * Returns a ClassReader corresponding to the given class or interface.
+   * Returns the hierarchy of the given class or interface.
    *
    * @param type
    *          the internal name of a class or interface.
-   * @return the ClassReader corresponding to 'type'.
+   * @return the hierarchy of 'type'.
    */
-  private ClassReader typeInfo(final String type) {
-    Optional<byte[]> maybeBytes = this.bytes.getBytes(type);
-    if (!maybeBytes.isPresent()) {
-      throw new RuntimeException("Could not find class defintiion for " + type);
-    }
-    return new ClassReader(maybeBytes.get());
+  private TypeHierarchy.Type typeInfo(final String type) {
+    return this.hierarchy.typeOf(type, this.bytes);
   }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package org.quicktheories.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.quicktheories.core.PseudoRandom;
+
+/**
+ * Examples that reached new coverage, from which further examples are made by
+ * mutation.
+ *
+ * Each entry is given energy according to the rarity of the probes it hits.
+ * The fewer examples that have hit its rarest probe, the more energy it has.
+ * Entries are chosen in proportion to their energy, and that many mutants of
+ * the chosen entry are scheduled. Energies are kept between schedules, and
+ * recalculated only once a hit count low enough to change one has grown.
+ *
+ * Mutants are made by havoc (a few random changes to values, each replacing a
+ * value with a random or boundary value of its constraint, nudging it, flipping
+ * a bit or copying another value) or by splicing the start of one entry onto
+ * the end of another.
+ */
+final class Corpus {
+
+  static final int           MAX_ENERGY     = 32;
+
+  private static final int   MAX_HAVOC_OPS  = 4;
+  private static final int   MAX_NUDGE      = 16;
+  private static final int   SPLICE_CHANCE  = 4;
+
+  private final PseudoRandom prng;
+  private final List<Entry>  entries        = new ArrayList<>();
+
+  // number of examples that have hit each probe, indexed by global probe id
+  private int[]              hitCounts      = new int[0];
+
+  // energy of each entry, their total, and whether they must be recalculated
+  private int[]              energies       = new int[16];
+  private long               totalEnergy    = 0;
+  private boolean            stale          = false;
+
+  Corpus(PseudoRandom prng) {
+    this.prng = prng;
+  }
+
+  boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Counts the probes hit by an executed example
+   *
+   * @param probes
+   *          global ids of the probes hit
+   * @param count
+   *          number of ids in probes
+   */
+  void countHits(int[] probes, int count) {
+    for (int i = 0; i != count; i++) {
+      final int probe = probes[i];
+      if (probe >= hitCounts.length) {
+        hitCounts = Arrays.copyOf(hitCounts,
+            Math.max(probe + 1, hitCounts.length * 2));
+      }
+      final int hits = hitCounts[probe] + 1;
+      hitCounts[probe] = hits;
+      // a first hit counts as one whether or not it has been recorded, and
+      // counts beyond the maximum energy all give the least energy
+      if (hits > 1 && hits <= MAX_ENERGY) {
+        stale = true;
+      }
+    }
+  }
+
+  /**
+   * Adds an example to the corpus. Examples with no values cannot be mutated,
+   * so are not added.
+   *
+   * @param values
+   *          values of the example
+   * @param min
+   *          minimum allowed for each value
+   * @param max
+   *          maximum allowed for each value
+   * @param probes
+   *          global ids of the probes the example hit
+   * @param count
+   *          number of ids in probes
+   * @return the index of the entry, or -1 if not added
+   */
+  int add(long[] values, long[] min, long[] max, int[] probes, int count) {
+    if (values.length == 0) {
+      return -1;
+    }
+    entries.add(new Entry(values, min, max, Arrays.copyOf(probes, count)));
+    final int index = entries.size() - 1;
+    if (index == energies.length) {
+      energies = Arrays.copyOf(energies, index * 2);
+    }
+    energies[index] = calculateEnergy(index);
+    totalEnergy = totalEnergy + energies[index];
+    return index;
+  }
+
+  /**
+   * Returns the energy of an entry, from 1 to {@link #MAX_ENERGY}
+   *
+   * @param index
+   *          index of entry
+   * @return energy of the entry
+   */
+  int energy(int index) {
+    refreshEnergies();
+    return energies[index];
+  }
+
+  private void refreshEnergies() {
+    if (!stale) {
+      return;
+    }
+    totalEnergy = 0;
+    for (int i = 0; i != entries.size(); i++) {
+      energies[i] = calculateEnergy(i);
+      totalEnergy = totalEnergy + energies[i];
+    }
+    stale = false;
+  }
+
+  private int calculateEnergy(int index) {
+    int rarest = Integer.MAX_VALUE;
+    for (final int probe : entries.get(index).probes) {
+      final int hits = probe < hitCounts.length ? hitCounts[probe] : 0;
+      rarest = Math.min(rarest, Math.max(hits, 1));
+    }
+    if (rarest == Integer.MAX_VALUE) {
+      return 1;
+    }
+    return Math.max(1, MAX_ENERGY / rarest);
+  }
+
+  /**
+   * Chooses an entry in proportion to its energy, and returns that many
+   * mutants of it
+   *
+   * @return mutants to execute
+   */
+  List<long[]> schedule() {
+    refreshEnergies();
+    long pick = prng.nextLong(0, totalEnergy - 1);
+    int chosen = 0;
+    while (pick >= energies[chosen]) {
+      pick = pick - energies[chosen];
+      chosen = chosen + 1;
+    }
+    return mutants(chosen, energies[chosen]);
+  }
+
+  /**
+   * Returns mutants of an entry
+   *
+   * @param index
+   *          index of entry
+   * @param number
+   *          number of mutants
+   * @return mutants
+   */
+  List<long[]> mutants(int index, int number) {
+    final Entry entry = entries.get(index);
+    final List<long[]> mutants = new ArrayList<>(number);
+    for (int i = 0; i != number; i++) {
+      if (entries.size() > 1 && prng.nextInt(1, SPLICE_CHANCE) == 1) {
+        final long[] spliced = splice(entry, otherThan(index));
+        havoc(spliced, entry, 1);
+        mutants.add(spliced);
+      } else {
+        final long[] values = entry.values.clone();
+        havoc(values, entry, prng.nextInt(1, MAX_HAVOC_OPS));
+        mutants.add(values);
+      }
+    }
+    return mutants;
+  }
+
+  private Entry otherThan(int index) {
+    final int other = prng.nextInt(0, entries.size() - 2);
+    return entries.get(other >= index ? other + 1 : other);
+  }
+
+  private long[] splice(Entry head, Entry tail) {
+    // values beyond the end of the head keep the shape of the tail
+    final int cut = prng.nextInt(0, head.values.length);
+    final long[] spliced = Arrays.copyOf(head.values,
+        Math.max(cut, tail.values.length));
+    if (cut < tail.values.length) {
+      System.arraycopy(tail.values, cut, spliced, cut,
+          tail.values.length - cut);
+    }
+    return spliced;
+  }
+
+  private void havoc(long[] values, Entry limits, int ops) {
+    // spliced values beyond the end of the entry are not mutated, as their
+    // limits are not known
+    final int length = Math.min(values.length, limits.values.length);
+    if (length == 0) {
+      return;
+    }
+    for (int i = 0; i != ops; i++) {
+      final int index = prng.nextInt(0, length - 1);
+      values[index] = mutate(values, index, limits.min[index],
+          limits.max[index]);
+    }
+  }
+
+  private long mutate(long[] values, int index, long min, long max) {
+    final long value = values[index];
+    switch (prng.nextInt(0, 4)) {
+    case 0:
+      return boundary(min, max);
+    case 1:
+      return nudge(value, min, max);
+    case 2:
+      return clamp(value ^ (1L << prng.nextInt(0, 63)), min, max);
+    case 3:
+      return clamp(values[prng.nextInt(0, values.length - 1)], min, max);
+    default:
+      return prng.nextLong(min, max);
+    }
+  }
+
+  private long boundary(long min, long max) {
+    switch (prng.nextInt(0, 4)) {
+    case 0:
+      return min;
+    case 1:
+      return max;
+    case 2:
+      return min == max ? min : min + 1;
+    case 3:
+      return min == max ? max : max - 1;
+    default:
+      return clamp(0, min, max);
+    }
+  }
+
+  private long nudge(long value, long min, long max) {
+    final long delta = prng.nextLong(1, MAX_NUDGE);
+    if (prng.nextInt(0, 1) == 0) {
+      return value > max - delta ? max : value + delta;
+    }
+    return value < min + delta ? min : value - delta;
+  }
+
+  private static long clamp(long value, long min, long max) {
+    return Math.max(min, Math.min(max, value));
+  }
+
+  private static final class Entry {
+    private final long[] values;
+    private final long[] min;
+    private final long[] max;
+    private final int[]  probes;
+
+    Entry(long[] values, long[] min, long[] max, int[] probes) {
+      this.values = values;
+      this.min = min;
+      this.max = max;
+      this.probes = probes;
+    }
+  }
+
+}
@@ -0,0 +1,122 @@
+package org.quicktheories.coverage;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative coverage held as a bitmap indexed by global probe id, along with
+ * the probes hit by the current example.
+ *
+ * Only the words touched by the current example are examined or cleared, and
+ * arrays are only reallocated when more probes are registered, so recording an
+ * example does not allocate.
+ */
+final class CoverageBitmap {
+
+  private long[] visited = new long[0];
+  private long[] current = new long[0];
+
+  // indexes of the words of current that have bits set
+  private int[]  currentWords = new int[16];
+  private int    currentWordCount;
+
+  private long   fingerprint;
+
+  /**
+   * Records the probes hit by an example, replacing any previously recorded
+   * example that was not merged.
+   *
+   * @param probes
+   *          global ids of the probes hit
+   * @param count
+   *          number of ids in probes
+   * @return true if any of the probes have not been visited before
+   */
+  boolean record(int[] probes, int count) {
+    clearCurrent();
+
+    long hash = 0;
+    for (int i = 0; i != count; i++) {
+      final int probe = probes[i];
+      final int word = probe >>> 6;
+      if (word >= current.length) {
+        ensureCapacity(word + 1);
+      }
+      if (current[word] == 0) {
+        addCurrentWord(word);
+      }
+      current[word] |= 1L << probe;
+      // summed so the fingerprint does not depend on the order probes are hit
+      hash += mix(probe);
+    }
+    fingerprint = hash;
+
+    long unvisited = 0;
+    for (int i = 0; i != currentWordCount; i++) {
+      final int word = currentWords[i];
+      unvisited |= current[word] & ~visited[word];
+    }
+    return unvisited != 0;
+  }
+
+  /**
+   * Adds the probes of the recorded example to the cumulative coverage
+   */
+  void merge() {
+    for (int i = 0; i != currentWordCount; i++) {
+      final int word = currentWords[i];
+      visited[word] |= current[word];
+    }
+    clearCurrent();
+  }
+
+  /**
+   * 64 bit fingerprint of the probes hit by the recorded example. Examples
+   * hitting the same set of probes have the same fingerprint.
+   *
+   * @return fingerprint of the example's coverage
+   */
+  long fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Returns the number of probes visited by merged examples
+   *
+   * @return number of probes visited
+   */
+  int visitedCount() {
+    int count = 0;
+    for (long each : visited) {
+      count = count + Long.bitCount(each);
+    }
+    return count;
+  }
+
+  private void clearCurrent() {
+    for (int i = 0; i != currentWordCount; i++) {
+      current[currentWords[i]] = 0;
+    }
+    currentWordCount = 0;
+  }
+
+  private void addCurrentWord(int word) {
+    if (currentWordCount == currentWords.length) {
+      currentWords = Arrays.copyOf(currentWords, currentWordCount * 2);
+    }
+    currentWords[currentWordCount] = word;
+    currentWordCount = currentWordCount + 1;
+  }
+
+  private void ensureCapacity(int words) {
+    visited = Arrays.copyOf(visited, Math.max(words, visited.length * 2));
+    current = Arrays.copyOf(current, visited.length);
+  }
+
+  private static long mix(long z) {
+    z = (z + 0x9E3779B97F4A7C15L);
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+}
@@ -19,6 +19,7 @@ package org.quicktheories.coverage;
 
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.quicktheories.coverage.analysis.CoverageAnalyser;
@@ -26,21 +27,95 @@ import org.quicktheories.coverage.analysis.CoverageAnalyser;
 import sun.quicktheories.coverage.CodeCoverageStore;
 
 /**
- * Instruments a class with probes on each line
+ * Instruments a class with probes on each line.
+ *
+ * When static probes are requested, and the class is not an interface, a
+ * synthetic static field holding the class's probe array is added, along with
+ * a synthetic method that fetches it from the store when it is first used or
+ * after the store has been reset. Methods then record probes by writing to the
+ * array directly, rather than allocating probes on each invocation and passing
+ * them to the store on each exit.
+ *
+ * Fields cannot be added when a loaded class is retransformed, or (with the
+ * required modifiers) to an interface, so these fall back to passing probes to
+ * the store.
+ *
+ * When edges are counted each probe also reports its location to the store,
+ * which counts hits on the edge from the previously entered block. Locations
+ * are derived from the class name rather than its id, and the id is only ever
+ * loaded from the constant pool, so that the instrumented bytes can be cached
+ * and reused with a different id.
  */
 public class CoverageClassVisitor extends ClassVisitor {
-  private final int classId;
 
-  private int       probeCount = 0;
+  public static final String PROBE_FIELD_NAME       = "$qtProbes";
+  public static final String PROBE_INIT_METHOD_NAME = "$qtInitProbes";
+  public static final String PROBE_INIT_METHOD_DESC = "()[Z";
+
+  static final int           PROBE_INIT_METHOD_ACCESS = Opcodes.ACC_PRIVATE
+      | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC;
+  static final int           PROBE_FIELD_ACCESS     = PROBE_INIT_METHOD_ACCESS
+      | Opcodes.ACC_TRANSIENT;
+
+  private final int          classId;
+  private final boolean      staticProbesRequested;
+  private final boolean      countEdges;
+  private final boolean      registerProbes;
+
+  private String             className;
+  private boolean            staticProbes;
+
+  private int                probeCount             = 0;
 
   public CoverageClassVisitor(final int classId, final ClassWriter writer) {
+    this(classId, writer, false, false, true);
+  }
+
+  /**
+   * Creates a visitor that does not register the class's probes with the
+   * store, leaving the caller to register {@link #probeCount()} probes.
+   *
+   * @param classId
+   *          id of the class
+   * @param writer
+   *          writer to instrument into
+   * @param staticProbes
+   *          true if probes should be held in a static field where possible
+   * @param countEdges
+   *          true if edge hits should be counted
+   */
+  public CoverageClassVisitor(final int classId, final ClassWriter writer,
+      final boolean staticProbes, final boolean countEdges) {
+    this(classId, writer, staticProbes, countEdges, false);
+  }
+
+  private CoverageClassVisitor(final int classId, final ClassWriter writer,
+      final boolean staticProbes, final boolean countEdges,
+      final boolean registerProbes) {
     super(Opcodes.ASM7, writer);
     this.classId = classId;
+    this.staticProbesRequested = staticProbes;
+    this.countEdges = countEdges;
+    this.registerProbes = registerProbes;
   }
 
   public void registerProbes(final int number) {
     this.probeCount = this.probeCount + number;
   }
+
+  public int probeCount() {
+    return this.probeCount;
+  }
+
+  @Override
+  public void visit(final int version, final int access, final String name,
+      final String signature, final String superName,
+      final String[] interfaces) {
+    super.visit(version, access, name, signature, superName, interfaces);
+    this.className = name;
+    this.staticProbes = this.staticProbesRequested
+        && ((access & Opcodes.ACC_INTERFACE) == 0);
+  }
  
   @Override
   public final MethodVisitor visitMethod(final int access, final String name,
@@ -48,14 +123,57 @@ public class CoverageClassVisitor extends ClassVisitor {
     final MethodVisitor methodVisitor = this.cv.visitMethod(access, name, desc,
         signature, exceptions);
     return new CoverageAnalyser(this, this.classId, this.probeCount,
-        methodVisitor, access, name, desc, signature, exceptions);
+        this.staticProbes ? this.className : null, this.countEdges,
+        this.className.hashCode(), methodVisitor, access, name, desc,
+        signature, exceptions);
   }
 
-
-
   @Override
   public void visitEnd() {
-    CodeCoverageStore.registerClassProbes(this.classId, this.probeCount);
+    if (this.staticProbes && (this.probeCount != 0)) {
+      addProbeField();
+    }
+    if (this.registerProbes) {
+      CodeCoverageStore.registerClassProbes(this.classId, this.probeCount);
+    }
+    super.visitEnd();
+  }
+
+  private void addProbeField() {
+    this.cv.visitField(PROBE_FIELD_ACCESS, PROBE_FIELD_NAME, "[Z", null, null)
+        .visitEnd();
+
+    // the array is fetched again if the store has been reset, which clears
+    // the class hit flag, or if a retransform has changed the number of probes
+    final MethodVisitor mv = this.cv.visitMethod(PROBE_INIT_METHOD_ACCESS,
+        PROBE_INIT_METHOD_NAME, PROBE_INIT_METHOD_DESC, null, null);
+    final Label fetch = new Label();
+    mv.visitCode();
+    mv.visitFieldInsn(Opcodes.GETSTATIC, this.className, PROBE_FIELD_NAME,
+        "[Z");
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitJumpInsn(Opcodes.IFNULL, fetch);
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitInsn(Opcodes.ICONST_0);
+    mv.visitInsn(Opcodes.BALOAD);
+    mv.visitJumpInsn(Opcodes.IFEQ, fetch);
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitInsn(Opcodes.ARRAYLENGTH);
+    mv.visitLdcInsn(this.probeCount + 1);
+    mv.visitJumpInsn(Opcodes.IF_ICMPNE, fetch);
+    mv.visitInsn(Opcodes.ARETURN);
+    mv.visitLabel(fetch);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitLdcInsn(this.classId);
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, CodeCoverageStore.CLASS_NAME,
+        CodeCoverageStore.PROBE_ARRAY_METHOD_NAME, "(I)[Z", false);
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitFieldInsn(Opcodes.PUTSTATIC, this.className, PROBE_FIELD_NAME,
+        "[Z");
+    mv.visitInsn(Opcodes.ARETURN);
+    // values unimportant as maxs are computed
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
   }
 
 }
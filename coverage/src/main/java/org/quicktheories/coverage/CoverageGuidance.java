@@ -1,11 +1,8 @@
 package org.quicktheories.coverage;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.quicktheories.core.Guidance;
 import org.quicktheories.core.PseudoRandom;
@@ -15,60 +12,119 @@ import net.bytebuddy.agent.ByteBuddyAgent;
 import net.bytebuddy.agent.ByteBuddyAgent.ProcessProvider;
 import sun.quicktheories.coverage.CodeCoverageStore;
 
+/**
+ * Concentrates the search around examples that reach new coverage.
+ *
+ * Each example that reaches new coverage is kept in a {@link Corpus} and
+ * mutants of it are tried straight away. Afterwards, random examples are
+ * interleaved with batches of mutants of corpus entries, chosen with a
+ * frequency and batch size that favour entries reaching rarely hit code.
+ *
+ * By default coverage is the set of blocks visited. If the QT_COVERAGE system
+ * property is set to "edges" when the agent is installed, it is instead the set
+ * of edges between blocks, each combined with a logarithmic bucket of its hit
+ * count, so that examples running a loop more times than any before are also
+ * treated as new coverage.
+ *
+ * If the QT_COVERAGE_LAZY system property is set to "true" classes are
+ * instrumented with probes between examples, once an example has reached them.
+ */
 public class CoverageGuidance implements Guidance {
+  public final static String COVERAGE = "QT_COVERAGE";
+
   private static final int UNGUIDED_EXECUTIONS = 3;
+
+  private static final boolean COUNT_EDGES = Agent.EDGES
+      .equals(System.getProperty(COVERAGE));
     
   static {
     Installer in = new Installer(new ClassloaderByteArraySource(Thread.currentThread().getContextClassLoader()));
-    ByteBuddyAgent.attach(in.createJar(), ProcessProvider.ForCurrentVm.INSTANCE);
+    ByteBuddyAgent.attach(in.createJar(), ProcessProvider.ForCurrentVm.INSTANCE,
+        COUNT_EDGES ? Agent.EDGES : null);
   }
 
-  private final PseudoRandom prng; 
-  private final Set<Long> visitedBranches = new HashSet<>();
-  
-  private Collection<Long> currentHits;
+  private final PseudoRandom prng;
+  private final CoverageBitmap coverage = new CoverageBitmap();
+  private final Corpus corpus;
+
+  private int[] hitProbes = new int[256];
+  private int hitCount;
+  private boolean newCoverage;
+
+  // executions before which previously suggested mutants are still queued
+  private int busyUntil;
   
   CoverageGuidance(PseudoRandom prng) {
     this.prng = prng;
+    this.corpus = new Corpus(prng);
   }
 
   @Override
   public void newExample(Precursor newExample) {
+    CodeCoverageStore.instrumentReachedClasses();
     CodeCoverageStore.reset(); 
   }
 
   @Override
   public void exampleExecuted() {
-    currentHits = CodeCoverageStore.getHits();  
+    int count = hits(hitProbes);
+    if (count > hitProbes.length) {
+      hitProbes = new int[Math.max(count, hitProbes.length * 2)];
+      count = hits(hitProbes);
+    }
+    hitCount = Math.min(count, hitProbes.length);
+    newCoverage = coverage.record(hitProbes, hitCount);
+    corpus.countHits(hitProbes, hitCount);
   }
 
   @Override
   public Collection<long[]> suggestValues(int execution, Precursor precursor) {
-    if (execution <= UNGUIDED_EXECUTIONS) {
+    if (newCoverage) {
+      int entry = corpus.add(precursor.current(), precursor.minLimit(),
+          precursor.maxLimit(), hitProbes, hitCount);
+      if (entry != -1 && execution > UNGUIDED_EXECUTIONS) {
+        return scheduled(execution,
+            corpus.mutants(entry, corpus.energy(entry)));
+      }
+    }
+
+    if (execution <= UNGUIDED_EXECUTIONS || corpus.isEmpty()
+        || execution < busyUntil) {
       return Collections.emptyList();
     }
 
-    if (!visitedBranches.containsAll(currentHits)) {
-      List<long[]> nearBy = new ArrayList<>();
-      for (int i = 0; i != 20; i++) {
-        nearBy.add(valueNear(precursor));
-      }
-      return nearBy;
+    // leave room for random examples to find coverage the corpus cannot reach
+    if (prng.nextInt(0, 1) == 0) {
+      return Collections.emptyList();
     }
-    return Collections.emptyList();
+    return scheduled(execution, corpus.schedule());
+  }
+
+  private Collection<long[]> scheduled(int execution, List<long[]> mutants) {
+    busyUntil = Math.max(busyUntil, execution) + mutants.size();
+    return mutants;
   }
 
   @Override
   public void exampleComplete() {
-    visitedBranches.addAll(currentHits);
-    currentHits = null;
+    coverage.merge();
+    newCoverage = false;
+  }
+
+  /**
+   * Returns a fingerprint of the probes hit by the last executed example
+   *
+   * @return fingerprint of the example's coverage
+   */
+  long coverageFingerprint() {
+    return coverage.fingerprint();
   }
 
-  private <T> long[] valueNear(Precursor t) {   
-    long[] ls= t.current();
-    int index = prng.nextInt(0, ls.length -1);
-    ls[index] = prng.nextLong(t.min(index), t.max(index));
-    return ls;
+  private static int hits(int[] into) {
+    if (COUNT_EDGES) {
+      return CodeCoverageStore.getHitEdges(into);
+    }
+    return CodeCoverageStore.getHitProbes(into);
   }
 
 }
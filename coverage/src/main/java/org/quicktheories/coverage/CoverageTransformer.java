@@ -3,8 +3,15 @@ package org.quicktheories.coverage;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 import org.objectweb.asm.ClassReader;
@@ -15,10 +22,50 @@ import sun.quicktheories.coverage.CodeCoverageStore;
 public class CoverageTransformer implements ClassFileTransformer {
   
   private final Predicate<String>   filter;
+  private final boolean             countEdges;
+  private final boolean             lazy;
+  private final Optional<TransformedClassCache> cache;
   private final Map<String, String> computeCache = new ConcurrentHashMap<>();
+  private final TypeHierarchy       hierarchy    = new TypeHierarchy();
+  private final Map<Class<?>, Prepared> prepared = new ConcurrentHashMap<>();
+
+  // when lazy, classes instrumented only to report when they are reached,
+  // keyed by the id they report, and the classes reached so far
+  private final Map<Integer, ReachableClass> unreached = new ConcurrentHashMap<>();
+  private final Set<Class<?>>       reached      = ConcurrentHashMap.newKeySet();
 
   public CoverageTransformer(final Predicate<String> filter) {
+    this(filter, false);
+  }
+
+  public CoverageTransformer(final Predicate<String> filter,
+      final boolean countEdges) {
+    this(filter, countEdges, Optional.empty());
+  }
+
+  CoverageTransformer(final Predicate<String> filter, final boolean countEdges,
+      final Optional<TransformedClassCache> cache) {
+    this(filter, countEdges, false, cache);
+  }
+
+  /**
+   * @param filter
+   *          classes to instrument
+   * @param countEdges
+   *          true if edge hits should be counted
+   * @param lazy
+   *          true if classes should at first only report when they are
+   *          reached, and be instrumented with probes when retransformed after
+   *          being returned by {@link #takeReachedClasses()}
+   * @param cache
+   *          cache of instrumented classes
+   */
+  CoverageTransformer(final Predicate<String> filter, final boolean countEdges,
+      final boolean lazy, final Optional<TransformedClassCache> cache) {
     this.filter = filter;
+    this.countEdges = countEdges;
+    this.lazy = lazy;
+    this.cache = cache;
   }
 
   @Override
@@ -28,9 +75,18 @@ public class CoverageTransformer implements ClassFileTransformer {
           throws IllegalClassFormatException {
                  
     final boolean include = shouldInclude(className);
+    final Prepared p = include && (classBeingRedefined != null)
+        ? this.prepared.get(classBeingRedefined) : null;
+    if ((p != null) && p.isFrom(classfileBuffer)) {
+      return p.instrumented.register(p.id);
+    }
     if (include) {
       try {
-        return transformBytes(loader, className, classfileBuffer);
+        // a class that was prepared keeps its id, so none is left unused
+        final int id = p != null ? p.id
+            : CodeCoverageStore.registerClass(className);
+        return instrument(loader, className, classBeingRedefined,
+            classfileBuffer, id).register(id);
       } catch (final RuntimeException t) {
         System.err.println("RuntimeException while transforming  " + className);
         throw t;
@@ -40,20 +96,195 @@ public class CoverageTransformer implements ClassFileTransformer {
     }
   }
 
-  private byte[] transformBytes(final ClassLoader loader,
-      final String className, final byte[] classfileBuffer) {
+  /**
+   * Instruments already loaded classes in parallel, so that retransforming
+   * them returns the prepared bytes without further work until they are
+   * discarded. The bytes are read from each class's loader, and are used only
+   * if they match the bytes supplied when the class is retransformed, as a
+   * loader may shadow its resources or another agent may have changed the
+   * class. Other classes, and classes whose bytes cannot be found or
+   * instrumented, are instrumented when retransformed.
+   *
+   * @param classes
+   *          classes about to be retransformed
+   * @param parallelism
+   *          number of threads to use
+   */
+  void prepareRetransform(final Collection<Class<?>> classes,
+      final int parallelism) {
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.submit(() -> classes.parallelStream().forEach(this::prepare))
+          .join();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Discards all prepared classes
+   */
+  void discardPrepared() {
+    this.prepared.clear();
+  }
+
+  /**
+   * Discards the prepared bytes for a class, so that it is instrumented from
+   * the bytes supplied when it is next retransformed
+   *
+   * @param clazz
+   *          class to discard
+   */
+  void discardPrepared(final Class<?> clazz) {
+    // the id is kept so that it is reused when the class is instrumented
+    this.prepared.computeIfPresent(clazz, (c, p) -> p.withoutBytes());
+  }
+
+  /**
+   * Returns the classes that have been reached since this method was last
+   * called, which will be instrumented with probes when next retransformed.
+   *
+   * @return classes to retransform
+   */
+  List<Class<?>> takeReachedClasses() {
+    final List<Class<?>> classes = new ArrayList<>();
+    for (final int id : CodeCoverageStore.takeReached()) {
+      final ReachableClass each = this.unreached.remove(id);
+      if (each != null) {
+        each.resolve().filter(this.reached::add).ifPresent(classes::add);
+      }
+    }
+    return classes;
+  }
+
+  private Instrumented instrument(final ClassLoader loader,
+      final String className, final Class<?> classBeingRedefined,
+      final byte[] classfileBuffer, final int id) {
+    if (this.lazy && !isReached(classBeingRedefined)) {
+      return new Instrumented(instrumentReachable(loader, className,
+          classBeingRedefined, classfileBuffer, id), -1);
+    }
+    return transformBytes(loader, classfileBuffer, id,
+        canUseStaticProbes(classBeingRedefined));
+  }
+
+  private boolean isReached(final Class<?> classBeingRedefined) {
+    return (classBeingRedefined != null)
+        && this.reached.contains(classBeingRedefined);
+  }
+
+  private byte[] instrumentReachable(final ClassLoader loader,
+      final String className, final Class<?> classBeingRedefined,
+      final byte[] classfileBuffer, final int id) {
+    this.unreached.put(id,
+        new ReachableClass(loader, className, classBeingRedefined));
+
+    // only code is added, so frames can be copied rather than computed
     final ClassReader reader = new ClassReader(classfileBuffer);
-    final ClassWriter writer = new ComputeClassWriter(
-        new ClassloaderByteArraySource(pickLoader(loader)), this.computeCache,
-        FrameOptions.pickFlags(classfileBuffer));
-    
-    final int id = CodeCoverageStore.registerClass(className);
-    reader.accept(new CoverageClassVisitor(id, writer),
-        ClassReader.EXPAND_FRAMES);
-    
+    final ClassWriter writer = new ClassWriter(reader, 0);
+    reader.accept(new ReachedClassVisitor(id, writer,
+        canUseStaticProbes(classBeingRedefined)), 0);
     return writer.toByteArray();
   }
 
+  private void prepare(final Class<?> clazz) {
+    final String className = clazz.getName().replace('.', '/');
+    if (!shouldInclude(className)) {
+      return;
+    }
+    final ClassLoader loader = pickLoader(clazz.getClassLoader());
+    try {
+      new ClassloaderByteArraySource(loader).getBytes(className)
+          .ifPresent(bs -> {
+            final int id = CodeCoverageStore.registerClass(className);
+            this.prepared.put(clazz, new Prepared(id, bs,
+                instrument(loader, className, clazz, bs, id)));
+          });
+    } catch (final RuntimeException e) {
+      // instrumented from the bytes supplied when retransformed instead
+    }
+  }
+
+  private Instrumented transformBytes(final ClassLoader loader,
+      final byte[] classfileBuffer, final int id, final boolean staticProbes) {
+    final ClassloaderByteArraySource source = new ClassloaderByteArraySource(
+        pickLoader(loader));
+
+    if (!this.cache.isPresent()
+        || !TransformedClassCache.canUsePlaceholder(classfileBuffer)) {
+      final TransformedClassCache.Entry transformed = instrument(source,
+          classfileBuffer, id, staticProbes);
+      return new Instrumented(transformed.withClassId(id),
+          transformed.probeCount());
+    }
+
+    final String key = TransformedClassCache.keyFor(classfileBuffer,
+        options(staticProbes));
+    final Optional<TransformedClassCache.Entry> cached = this.cache.get()
+        .get(key).filter(e -> agreesWithHierarchy(source, e));
+    final TransformedClassCache.Entry transformed;
+    if (cached.isPresent()) {
+      transformed = cached.get();
+    } else {
+      transformed = instrument(source, classfileBuffer,
+          TransformedClassCache.PLACEHOLDER_CLASS_ID, staticProbes);
+      this.cache.get().put(key, transformed);
+    }
+    return new Instrumented(transformed.withClassId(id),
+        transformed.probeCount());
+  }
+
+  private TransformedClassCache.Entry instrument(
+      final ClassloaderByteArraySource source, final byte[] classfileBuffer,
+      final int id, final boolean staticProbes) {
+    final ClassReader reader = new ClassReader(classfileBuffer);
+    final ComputeClassWriter writer = new ComputeClassWriter(source,
+        this.hierarchy, this.computeCache,
+        FrameOptions.pickFlags(classfileBuffer));
+
+    final CoverageClassVisitor visitor = new CoverageClassVisitor(id, writer,
+        staticProbes, this.countEdges);
+    reader.accept(visitor, ClassReader.EXPAND_FRAMES);
+
+    final byte[] bytes = writer.toByteArray();
+    return new TransformedClassCache.Entry(bytes, visitor.probeCount(),
+        id == TransformedClassCache.PLACEHOLDER_CLASS_ID
+            ? TransformedClassCache.integerConstantOffset(bytes, id) : -1,
+        writer.usedCommonSuperClasses());
+  }
+
+  private boolean agreesWithHierarchy(final ClassloaderByteArraySource source,
+      final TransformedClassCache.Entry entry) {
+    try {
+      return new ComputeClassWriter(source, this.hierarchy, this.computeCache,
+          0).agreesWith(entry.commonSuperClasses());
+    } catch (final RuntimeException e) {
+      return false;
+    }
+  }
+
+  private int options(final boolean staticProbes) {
+    return (staticProbes ? 1 : 0) | (this.countEdges ? 2 : 0);
+  }
+
+  /**
+   * Fields cannot be added or removed when a class is retransformed, so a
+   * static probe field can be used only for classes being loaded, or those
+   * that already had one added when they were loaded.
+   */
+  private static boolean canUseStaticProbes(final Class<?> classBeingRedefined) {
+    if (classBeingRedefined == null) {
+      return true;
+    }
+    try {
+      classBeingRedefined
+          .getDeclaredField(CoverageClassVisitor.PROBE_FIELD_NAME);
+      return true;
+    } catch (final NoSuchFieldException | LinkageError | SecurityException e) {
+      return false;
+    }
+  }
+
   private boolean shouldInclude(final String className) {
     return className != null && this.filter.test(className);
   }
@@ -66,5 +297,81 @@ public class CoverageTransformer implements ClassFileTransformer {
     return ClassLoader.getSystemClassLoader();
   }
 
-  
+  /**
+   * The bytes of an instrumented class, and the number of probes to register
+   * for it when they are returned, or -1 if it has none
+   */
+  private static final class Instrumented {
+    private final byte[] bytes;
+    private final int    probeCount;
+
+    Instrumented(final byte[] bytes, final int probeCount) {
+      this.bytes = bytes;
+      this.probeCount = probeCount;
+    }
+
+    byte[] register(final int id) {
+      if (this.probeCount != -1) {
+        CodeCoverageStore.registerClassProbes(id, this.probeCount);
+      }
+      return this.bytes;
+    }
+  }
+
+  /**
+   * A loaded class instrumented ahead of being retransformed, with the bytes
+   * it was instrumented from. Probes are registered only once the
+   * instrumented bytes are returned.
+   */
+  private static final class Prepared {
+    private final int          id;
+    private final byte[]       source;
+    private final Instrumented instrumented;
+
+    Prepared(final int id, final byte[] source,
+        final Instrumented instrumented) {
+      this.id = id;
+      this.source = source;
+      this.instrumented = instrumented;
+    }
+
+    boolean isFrom(final byte[] classfileBuffer) {
+      return (this.source != null)
+          && Arrays.equals(this.source, classfileBuffer);
+    }
+
+    Prepared withoutBytes() {
+      return new Prepared(this.id, null, null);
+    }
+  }
+
+  /**
+   * A class instrumented to report when it is reached. Classes being loaded
+   * are not yet defined when transformed, so are found by name when reached.
+   */
+  private static final class ReachableClass {
+    private final ClassLoader loader;
+    private final String      name;
+    private final Class<?>    clazz;
+
+    ReachableClass(final ClassLoader loader, final String name,
+        final Class<?> clazz) {
+      this.loader = loader;
+      this.name = name;
+      this.clazz = clazz;
+    }
+
+    Optional<Class<?>> resolve() {
+      if (this.clazz != null) {
+        return Optional.of(this.clazz);
+      }
+      try {
+        return Optional
+            .of(Class.forName(this.name.replace('/', '.'), false, this.loader));
+      } catch (final ClassNotFoundException | LinkageError e) {
+        return Optional.empty();
+      }
+    }
+  }
+
 }
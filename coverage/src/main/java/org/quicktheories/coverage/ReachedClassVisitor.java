@@ -0,0 +1,86 @@
+package org.quicktheories.coverage;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import sun.quicktheories.coverage.CodeCoverageStore;
+
+/**
+ * Instruments a class only to report to the store when one of its methods is
+ * entered, so that it can be retransformed with coverage probes once it is
+ * reached.
+ *
+ * Fields and methods cannot be added when the class is retransformed, so when
+ * static probes are requested the synthetic field and method that
+ * {@link CoverageClassVisitor} would add are added now. The method is not
+ * called until the class is retransformed, and so does nothing.
+ */
+class ReachedClassVisitor extends ClassVisitor {
+
+  private final int     classId;
+  private final boolean staticProbesRequested;
+
+  private boolean       staticProbes;
+
+  ReachedClassVisitor(final int classId, final ClassVisitor writer,
+      final boolean staticProbes) {
+    super(Opcodes.ASM7, writer);
+    this.classId = classId;
+    this.staticProbesRequested = staticProbes;
+  }
+
+  @Override
+  public void visit(final int version, final int access, final String name,
+      final String signature, final String superName,
+      final String[] interfaces) {
+    super.visit(version, access, name, signature, superName, interfaces);
+    this.staticProbes = this.staticProbesRequested
+        && ((access & Opcodes.ACC_INTERFACE) == 0);
+  }
+
+  @Override
+  public MethodVisitor visitMethod(final int access, final String name,
+      final String desc, final String signature, final String[] exceptions) {
+    final MethodVisitor mv = super.visitMethod(access, name, desc, signature,
+        exceptions);
+    if (mv == null) {
+      return null;
+    }
+    return new MethodVisitor(Opcodes.ASM7, mv) {
+      @Override
+      public void visitCode() {
+        super.visitCode();
+        super.visitLdcInsn(ReachedClassVisitor.this.classId);
+        super.visitMethodInsn(Opcodes.INVOKESTATIC,
+            CodeCoverageStore.CLASS_NAME,
+            CodeCoverageStore.REACHED_METHOD_NAME, "(I)V", false);
+      }
+
+      @Override
+      public void visitMaxs(final int maxStack, final int maxLocals) {
+        // frames and maxs are not computed, so must allow for the id
+        super.visitMaxs(Math.max(maxStack, 1), maxLocals);
+      }
+    };
+  }
+
+  @Override
+  public void visitEnd() {
+    if (this.staticProbes) {
+      this.cv.visitField(CoverageClassVisitor.PROBE_FIELD_ACCESS,
+          CoverageClassVisitor.PROBE_FIELD_NAME, "[Z", null, null).visitEnd();
+      final MethodVisitor mv = this.cv.visitMethod(
+          CoverageClassVisitor.PROBE_INIT_METHOD_ACCESS,
+          CoverageClassVisitor.PROBE_INIT_METHOD_NAME,
+          CoverageClassVisitor.PROBE_INIT_METHOD_DESC, null, null);
+      mv.visitCode();
+      mv.visitInsn(Opcodes.ACONST_NULL);
+      mv.visitInsn(Opcodes.ARETURN);
+      mv.visitMaxs(1, 0);
+      mv.visitEnd();
+    }
+    super.visitEnd();
+  }
+
+}
@@ -0,0 +1,352 @@
+package org.quicktheories.coverage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Content addressed disk cache of instrumented classes, so that JVMs other
+ * than the first to load a class can skip analysing and instrumenting it.
+ *
+ * Entries are keyed by a hash of the original class bytes, the instrumentation
+ * options and {@link #VERSION}. They hold the instrumented bytes, the number
+ * of probes, the position of the class id in the constant pool so that it can
+ * be replaced with the id given in the current JVM, and the common super
+ * classes used to compute stack map frames, which must be checked against the
+ * current class hierarchy before an entry is used.
+ *
+ * Each entry is a separate file, written to a temporary file and moved into
+ * place, so JVMs sharing the cache cannot see partially written entries.
+ * Entries are memory mapped for reading, and hold a digest of their contents
+ * which must match before they are used. Any error reading or writing the
+ * cache is treated as a miss.
+ *
+ * Cached entries are defined as classes, so the cache is only opened in a
+ * directory that belongs to the current user and that no one else can write
+ * to.
+ */
+final class TransformedClassCache {
+
+  /**
+   * Must be changed whenever the instrumented output of a class changes
+   */
+  static final String      VERSION              = "2";
+
+  /**
+   * Class id written to classes to be cached, replaced with the real id when
+   * they are loaded. Classes whose constant pool already contains this value
+   * are not cached.
+   */
+  static final int         PLACEHOLDER_CLASS_ID = 0x7AC0DE1D;
+
+  private static final int MAGIC                = 0x51544343;
+  private static final int CONSTANT_INTEGER     = 3;
+  private static final int HEADER_INTS          = 5;
+  private static final int DIGEST_BYTES         = 32;
+
+  private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(
+      PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+      PosixFilePermission.OWNER_EXECUTE);
+
+  private final Path       directory;
+
+  TransformedClassCache(final Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Opens a cache in a directory, creating it readable only by the current
+   * user if it does not exist
+   *
+   * @param directory
+   *          directory to cache classes in
+   * @return the cache, or empty if the directory could not be created or
+   *         could be written to by other users
+   */
+  static Optional<TransformedClassCache> open(final Path directory) {
+    try {
+      createOwnerOnly(directory);
+      if (!isPrivate(directory)) {
+        System.err.println("Not caching instrumented classes in " + directory
+            + " as it is not a directory private to the current user");
+        return Optional.empty();
+      }
+      return Optional.of(new TransformedClassCache(directory));
+    } catch (final IOException | RuntimeException e) {
+      System.err.println("Not caching instrumented classes in " + directory
+          + " as it could not be created: " + e);
+      return Optional.empty();
+    }
+  }
+
+  private static void createOwnerOnly(final Path directory)
+      throws IOException {
+    if (isPosix(directory)) {
+      final FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions
+          .asFileAttribute(OWNER_ONLY);
+      Files.createDirectories(directory, ownerOnly);
+    } else {
+      Files.createDirectories(directory);
+    }
+  }
+
+  private static boolean isPrivate(final Path directory) throws IOException {
+    final UserPrincipal user = FileSystems.getDefault()
+        .getUserPrincipalLookupService()
+        .lookupPrincipalByName(System.getProperty("user.name"));
+    if (!Files.isDirectory(directory) || Files.isSymbolicLink(directory)
+        || !Files.getOwner(directory).equals(user)) {
+      return false;
+    }
+    return !isPosix(directory)
+        || OWNER_ONLY.containsAll(Files.getPosixFilePermissions(directory));
+  }
+
+  private static boolean isPosix(final Path directory) {
+    return directory.getFileSystem().supportedFileAttributeViews()
+        .contains("posix");
+  }
+
+  /**
+   * Returns the key for a class
+   *
+   * @param classfile
+   *          original bytes of the class
+   * @param options
+   *          instrumentation options the class is transformed with
+   * @return cache key
+   */
+  static String keyFor(final byte[] classfile, final int options) {
+    final MessageDigest digest = sha256();
+    digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) options);
+    final byte[] hash = digest.digest(classfile);
+    final StringBuilder sb = new StringBuilder(hash.length * 2);
+    for (final byte each : hash) {
+      sb.append(Character.forDigit((each >> 4) & 0xF, 16));
+      sb.append(Character.forDigit(each & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns true if the class can be instrumented with the placeholder id
+   *
+   * @param classfile
+   *          original bytes of the class
+   * @return true if the placeholder can be used
+   */
+  static boolean canUsePlaceholder(final byte[] classfile) {
+    return integerConstantOffset(classfile, PLACEHOLDER_CLASS_ID) == -1;
+  }
+
+  Optional<Entry> get(final String key) {
+    final Path file = fileFor(key);
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel
+          .map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return read(buffer);
+    } catch (final IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  void put(final String key, final Entry entry) {
+    final Path file = fileFor(key);
+    Path temp = null;
+    try {
+      createOwnerOnly(file.getParent());
+      temp = Files.createTempFile(file.getParent(), key, ".tmp");
+      Files.write(temp, entry.toBytes());
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (final IOException | RuntimeException e) {
+      deleteQuietly(temp);
+    }
+  }
+
+  private Path fileFor(final String key) {
+    // split across directories as most file systems slow down with many
+    // entries in one
+    return this.directory.resolve(key.substring(0, 2))
+        .resolve(key.substring(2));
+  }
+
+  private static Optional<Entry> read(final ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      return Optional.empty();
+    }
+    final byte[] expected = new byte[DIGEST_BYTES];
+    buffer.get(expected);
+    final MessageDigest digest = sha256();
+    digest.update(buffer.duplicate());
+    if (!MessageDigest.isEqual(expected, digest.digest())) {
+      return Optional.empty();
+    }
+    final int probeCount = buffer.getInt();
+    final int classIdOffset = buffer.getInt();
+    final int superClassCount = buffer.getInt();
+    final int length = buffer.getInt();
+
+    final Map<String, String> superClasses = new LinkedHashMap<>();
+    for (int i = 0; i != superClassCount; i++) {
+      superClasses.put(readString(buffer), readString(buffer));
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return Optional
+        .of(new Entry(bytes, probeCount, classIdOffset, superClasses));
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    final byte[] bs = new byte[buffer.getInt()];
+    buffer.get(bs);
+    return new String(bs, StandardCharsets.UTF_8);
+  }
+
+  private static void deleteQuietly(final Path temp) {
+    if (temp != null) {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (final IOException e) {
+        // nothing more can be done
+      }
+    }
+  }
+
+  /**
+   * Returns the offset in the class file of the value of the integer constant
+   * pool entry with the given value.
+   *
+   * @param classfile
+   *          class to search
+   * @param value
+   *          value to find
+   * @return offset of value, or -1 if not present
+   */
+  static int integerConstantOffset(final byte[] classfile, final int value) {
+    final ClassReader reader = new ClassReader(classfile);
+    for (int i = 1; i != reader.getItemCount(); i++) {
+      // item offsets point past the tag, and are 0 for the second slot of
+      // long and double entries
+      final int offset = reader.getItem(i);
+      if ((offset != 0) && (classfile[offset - 1] == CONSTANT_INTEGER)
+          && (reader.readInt(offset) == value)) {
+        return offset;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * An instrumented class
+   */
+  static final class Entry {
+    private final byte[]              bytes;
+    private final int                 probeCount;
+    private final int                 classIdOffset;
+    private final Map<String, String> commonSuperClasses;
+
+    Entry(final byte[] bytes, final int probeCount, final int classIdOffset,
+        final Map<String, String> commonSuperClasses) {
+      this.bytes = bytes;
+      this.probeCount = probeCount;
+      this.classIdOffset = classIdOffset;
+      this.commonSuperClasses = commonSuperClasses;
+    }
+
+    int probeCount() {
+      return this.probeCount;
+    }
+
+    Map<String, String> commonSuperClasses() {
+      return this.commonSuperClasses;
+    }
+
+    /**
+     * Returns the instrumented bytes with the placeholder id replaced. May
+     * return the entry's own array.
+     *
+     * @param classId
+     *          id to use
+     * @return class bytes
+     */
+    byte[] withClassId(final int classId) {
+      if (this.classIdOffset == -1) {
+        return this.bytes;
+      }
+      final byte[] bs = this.bytes.clone();
+      bs[this.classIdOffset] = (byte) (classId >>> 24);
+      bs[this.classIdOffset + 1] = (byte) (classId >>> 16);
+      bs[this.classIdOffset + 2] = (byte) (classId >>> 8);
+      bs[this.classIdOffset + 3] = (byte) classId;
+      return bs;
+    }
+
+    private byte[] toBytes() {
+      final byte[][] strings = new byte[this.commonSuperClasses.size() * 2][];
+      int size = (HEADER_INTS * 4) + DIGEST_BYTES + this.bytes.length;
+      int i = 0;
+      for (final Map.Entry<String, String> each : this.commonSuperClasses
+          .entrySet()) {
+        strings[i] = each.getKey().getBytes(StandardCharsets.UTF_8);
+        strings[i + 1] = each.getValue().getBytes(StandardCharsets.UTF_8);
+        size = size + 8 + strings[i].length + strings[i + 1].length;
+        i = i + 2;
+      }
+
+      final ByteBuffer buffer = ByteBuffer.allocate(size);
+      buffer.putInt(MAGIC);
+      // the digest of the rest of the entry is written once it is known
+      buffer.position(4 + DIGEST_BYTES);
+      buffer.putInt(this.probeCount);
+      buffer.putInt(this.classIdOffset);
+      buffer.putInt(this.commonSuperClasses.size());
+      buffer.putInt(this.bytes.length);
+      for (final byte[] each : strings) {
+        buffer.putInt(each.length);
+        buffer.put(each);
+      }
+      buffer.put(this.bytes);
+      final MessageDigest digest = sha256();
+      digest.update(buffer.array(), 4 + DIGEST_BYTES,
+          size - 4 - DIGEST_BYTES);
+      buffer.position(4);
+      buffer.put(digest.digest());
+      return buffer.array();
+    }
+  }
+
+}
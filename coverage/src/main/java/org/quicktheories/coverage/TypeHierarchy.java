@@ -0,0 +1,109 @@
+package org.quicktheories.coverage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Bounded cache of the super class, interfaces and kind of classes, so that
+ * computing frames reads and parses the bytes of each class in the hierarchy
+ * once, rather than for every pair of types whose common super class is
+ * needed.
+ *
+ * A single cache is shared by all transforms. Like the cache of common super
+ * classes, entries are keyed by class name alone, so classes with the same
+ * name in different loaders are assumed to have the same hierarchy. The least
+ * recently used entries are dropped once the cache is full.
+ */
+final class TypeHierarchy {
+
+  static final int               DEFAULT_SIZE = 16384;
+
+  private final Map<String, Type> types;
+
+  TypeHierarchy() {
+    this(DEFAULT_SIZE);
+  }
+
+  TypeHierarchy(final int maxSize) {
+    this.types = new LinkedHashMap<String, Type>(64, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<String, Type> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the hierarchy of a type, reading it from the source if it is not
+   * cached
+   *
+   * @param type
+   *          internal name of a class or interface
+   * @param source
+   *          source to read the type from
+   * @return the type
+   */
+  Type typeOf(final String type, final ClassByteArraySource source) {
+    synchronized (this.types) {
+      final Type cached = this.types.get(type);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    // read outside the lock, as reading may load and so transform classes
+    final Optional<byte[]> bytes = source.getBytes(type);
+    if (!bytes.isPresent()) {
+      throw new RuntimeException("Could not find class defintiion for " + type);
+    }
+    final ClassReader reader = new ClassReader(bytes.get());
+    final Type read = new Type(reader.getSuperName(), reader.getInterfaces(),
+        (reader.getAccess() & Opcodes.ACC_INTERFACE) != 0);
+    synchronized (this.types) {
+      this.types.put(type, read);
+    }
+    return read;
+  }
+
+  int size() {
+    synchronized (this.types) {
+      return this.types.size();
+    }
+  }
+
+  /**
+   * The parts of a class needed to find common super classes
+   */
+  static final class Type {
+    private final String   superName;
+    private final String[] interfaces;
+    private final boolean  isInterface;
+
+    Type(final String superName, final String[] interfaces,
+        final boolean isInterface) {
+      this.superName = superName;
+      this.interfaces = interfaces;
+      this.isInterface = isInterface;
+    }
+
+    String superName() {
+      return this.superName;
+    }
+
+    String[] interfaces() {
+      return this.interfaces;
+    }
+
+    boolean isInterface() {
+      return this.isInterface;
+    }
+  }
+
+}
@@ -8,6 +8,8 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.AdviceAdapter;
 
+import sun.quicktheories.coverage.CodeCoverageStore;
+
 abstract class AbstractCoverageStrategy extends AdviceAdapter {
 
   protected final MethodVisitor    methodVisitor;
@@ -16,6 +18,8 @@ abstract class AbstractCoverageStrategy extends AdviceAdapter {
   protected final List<Block>      blocks;
 
   private final InstructionCounter counter;
+  private final boolean            countEdges;
+  private final int                edgeClass;
 
   /**
    * label to mark start of try finally block that is added to each method
@@ -31,7 +35,8 @@ abstract class AbstractCoverageStrategy extends AdviceAdapter {
 
   AbstractCoverageStrategy(List<Block> blocks, InstructionCounter counter,
       final int classId, final MethodVisitor writer, final int access,
-      final String name, final String desc, final int probeOffset) {
+      final String name, final String desc, final int probeOffset,
+      final boolean countEdges, final int edgeClass) {
     super(Opcodes.ASM7, writer, access, name, desc);
 
     this.methodVisitor = writer;
@@ -39,6 +44,8 @@ abstract class AbstractCoverageStrategy extends AdviceAdapter {
     this.counter = counter;
     this.blocks = blocks;
     this.probeOffset = probeOffset;
+    this.countEdges = countEdges;
+    this.edgeClass = edgeClass;
   }
 
   abstract void prepare();
@@ -215,10 +222,21 @@ abstract class AbstractCoverageStrategy extends AdviceAdapter {
   private void insertProbeIfAppropriate() {
     if (needsProbe(this.counter.currentInstructionCount())) {
       insertProbe();
+      if (this.countEdges) {
+        insertEdgeProbe();
+      }
       this.probeCount++;
     }
   }
 
+  private void insertEdgeProbe() {
+    this.methodVisitor.visitLdcInsn(CodeCoverageStore.edgeLocation(
+        this.edgeClass, this.probeCount + this.probeOffset));
+    this.methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC,
+        CodeCoverageStore.CLASS_NAME, CodeCoverageStore.EDGE_METHOD_NAME,
+        "(I)V", false);
+  }
+
   private boolean needsProbe(int currentInstructionCount) {
     for (Block each : this.blocks) {
       if (each.firstInstructionIs(currentInstructionCount - 1)) {
@@ -51,8 +51,10 @@ public class ArrayProbeCoverageMethodVisitor extends AbstractCoverageStrategy {
   public ArrayProbeCoverageMethodVisitor(List<Block> blocks,
       InstructionCounter counter, final int classId,
       final MethodVisitor writer, final int access, final String name,
-      final String desc, final int probeOffset) {
-    super(blocks, counter, classId, writer, access, name, desc, probeOffset);
+      final String desc, final int probeOffset, final boolean countEdges,
+      final int edgeClass) {
+    super(blocks, counter, classId, writer, access, name, desc, probeOffset,
+        countEdges, edgeClass);
   }
 
   @Override
@@ -67,7 +69,7 @@ public class ArrayProbeCoverageMethodVisitor extends AbstractCoverageStrategy {
   @Override
   void generateProbeReportCode() {
 
-    pushConstant(this.classId);
+    this.mv.visitLdcInsn(this.classId);
     pushConstant(this.probeOffset);
     this.mv.visitVarInsn(ALOAD, this.probeHitArrayLocal);
 
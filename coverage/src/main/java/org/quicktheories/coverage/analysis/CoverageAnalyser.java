@@ -20,16 +20,23 @@ public class CoverageAnalyser extends MethodNode {
   private final int                  classId;
   private final MethodVisitor        mv;
   private final int                  probeOffset;
+  private final String               probeOwner;
+  private final boolean              countEdges;
+  private final int                  edgeClass;
 
   public CoverageAnalyser(final CoverageClassVisitor parent, final int classId,
-      final int probeOffset, final MethodVisitor mv, final int access,
-      final String name, final String desc, final String signature,
-      final String[] exceptions) {
+      final int probeOffset, final String probeOwner,
+      final boolean countEdges, final int edgeClass, final MethodVisitor mv,
+      final int access, final String name, final String desc,
+      final String signature, final String[] exceptions) {
     super(Opcodes.ASM7, access, name, desc, signature, exceptions);
     this.mv = mv;
     this.parent = parent;
     this.classId = classId;
     this.probeOffset = probeOffset;
+    this.probeOwner = probeOwner;
+    this.countEdges = countEdges;
+    this.edgeClass = edgeClass;
   }
 
   @Override
@@ -50,22 +57,33 @@ public class CoverageAnalyser extends MethodNode {
     // java 7 verifier - hence fall back to a simple but slow approach.
     final DefaultInstructionCounter counter = new DefaultInstructionCounter();
 
-    if ((blockCount == 1) || this.name.equals("<init>")) {
+    if (this.probeOwner != null) {
+      // no finally block is needed when probes are written to a static field,
+      // so this can be used for constructors too
+      accept(new InstructionTrackingMethodVisitor(
+          new StaticFieldProbeCoverageMethodVisitor(blocks, counter,
+              this.classId, this.probeOwner, this.mv, this.access, this.name,
+              this.desc, this.probeOffset, this.countEdges, this.edgeClass),
+              counter));
+    } else if ((blockCount == 1) || this.name.equals("<init>")) {
       accept(new InstructionTrackingMethodVisitor(
           new SimpleBlockCoverageVisitor(blocks, counter, this.classId,
-              this.mv, this.access, this.name, this.desc, this.probeOffset),
+              this.mv, this.access, this.name, this.desc, this.probeOffset,
+              this.countEdges, this.edgeClass),
               counter));
     } else if ((blockCount <= MAX_SUPPORTED_LOCAL_PROBES) && (blockCount >= 1)) {
       accept(new InstructionTrackingMethodVisitor(
           new LocalVariableCoverageMethodVisitor(blocks, counter, this.classId,
-              this.mv, this.access, this.name, this.desc, this.probeOffset),
+              this.mv, this.access, this.name, this.desc, this.probeOffset,
+              this.countEdges, this.edgeClass),
               counter));
     } else {
       // for now fall back to the naive implementation - could instead use array
       // passing version
       accept(new InstructionTrackingMethodVisitor(
           new ArrayProbeCoverageMethodVisitor(blocks, counter, this.classId,
-              this.mv, this.access, this.name, this.desc, this.probeOffset),
+              this.mv, this.access, this.name, this.desc, this.probeOffset,
+              this.countEdges, this.edgeClass),
               counter));
     }
 
@@ -24,8 +24,10 @@ class LocalVariableCoverageMethodVisitor extends AbstractCoverageStrategy {
   LocalVariableCoverageMethodVisitor(final List<Block> blocks,
       final InstructionCounter counter, final int classId,
       final MethodVisitor writer, final int access, final String name,
-      final String desc, final int probeOffset) {
-    super(blocks, counter, classId, writer, access, name, desc, probeOffset);
+      final String desc, final int probeOffset, final boolean countEdges,
+      final int edgeClass) {
+    super(blocks, counter, classId, writer, access, name, desc, probeOffset,
+        countEdges, edgeClass);
   }
 
   @Override
@@ -47,7 +49,7 @@ class LocalVariableCoverageMethodVisitor extends AbstractCoverageStrategy {
   @Override
   protected void generateProbeReportCode() {
 
-    pushConstant(this.classId);
+    this.mv.visitLdcInsn(this.classId);
     pushConstant(this.probeOffset);
 
     for (final int i : this.locals) {
@@ -26,13 +26,16 @@ public class SimpleBlockCoverageVisitor extends MethodVisitor {
 
   private final InstructionCounter counter;
   private final List<Block>        blocks;
+  private final boolean            countEdges;
+  private final int                edgeClass;
 
   private int                      probeCount = 0;
 
   public SimpleBlockCoverageVisitor(List<Block> blocks,
       InstructionCounter counter, final int classId,
       final MethodVisitor writer, final int access, final String name,
-      final String desc, final int probeOffset) {
+      final String desc, final int probeOffset, final boolean countEdges,
+      final int edgeClass) {
     super(Opcodes.ASM7, writer);
 
     this.counter = counter;
@@ -41,6 +44,8 @@ public class SimpleBlockCoverageVisitor extends MethodVisitor {
     this.blocks = blocks;
 
     this.probeOffset = probeOffset;
+    this.countEdges = countEdges;
+    this.edgeClass = edgeClass;
   }
 
   @Override
@@ -154,6 +159,14 @@ public class SimpleBlockCoverageVisitor extends MethodVisitor {
       this.methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC,
           CodeCoverageStore.CLASS_NAME, "visitSingleProbe", "(II)V", false);
 
+      if (this.countEdges) {
+        this.methodVisitor.visitLdcInsn(CodeCoverageStore.edgeLocation(
+            this.edgeClass, this.probeCount + this.probeOffset));
+        this.methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC,
+            CodeCoverageStore.CLASS_NAME, CodeCoverageStore.EDGE_METHOD_NAME,
+            "(I)V", false);
+      }
+
       this.probeCount++;
     }
   }
@@ -0,0 +1,64 @@
+package org.quicktheories.coverage.analysis;
+
+import java.util.List;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.quicktheories.coverage.CoverageClassVisitor;
+
+/**
+ * Writes probes directly to the class's probe array, held in a static field
+ * added by {@link CoverageClassVisitor}.
+ *
+ * The array is fetched once on method entry and kept in a local. Nothing is
+ * allocated per invocation and the store is not called on exit, so no finally
+ * block is required.
+ */
+class StaticFieldProbeCoverageMethodVisitor extends AbstractCoverageStrategy {
+
+  private final String owner;
+
+  private int          probeArrayLocal;
+
+  StaticFieldProbeCoverageMethodVisitor(final List<Block> blocks,
+      final InstructionCounter counter, final int classId, final String owner,
+      final MethodVisitor writer, final int access, final String name,
+      final String desc, final int probeOffset, final boolean countEdges,
+      final int edgeClass) {
+    super(blocks, counter, classId, writer, access, name, desc, probeOffset,
+        countEdges, edgeClass);
+    this.owner = owner;
+  }
+
+  @Override
+  void prepare() {
+    this.probeArrayLocal = newLocal(Type.getType("[Z"));
+
+    this.methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, this.owner,
+        CoverageClassVisitor.PROBE_INIT_METHOD_NAME,
+        CoverageClassVisitor.PROBE_INIT_METHOD_DESC, false);
+    this.mv.visitVarInsn(ASTORE, this.probeArrayLocal);
+  }
+
+  @Override
+  void generateProbeReportCode() {
+    // probes are written directly to the store's array
+  }
+
+  @Override
+  void insertProbe() {
+    this.mv.visitVarInsn(ALOAD, this.probeArrayLocal);
+    // first slot is the class hit flag
+    pushConstant(this.probeOffset + this.probeCount + 1);
+    pushConstant(1);
+    this.mv.visitInsn(BASTORE);
+  }
+
+  @Override
+  public void visitMaxs(final int maxStack, final int maxLocals) {
+    // values actually unimportant as we're using compute max
+    this.mv.visitMaxs(maxStack, this.nextLocal);
+  }
+
+}
@@ -21,10 +21,8 @@
 package sun.quicktheories.coverage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Store for line visit information.
@@ -42,17 +40,53 @@ public final class CodeCoverageStore {
                                                                          '.',
                                                                          '/');
   public static final String                   PROBE_METHOD_NAME = "visitProbes";
+  public static final String                   PROBE_ARRAY_METHOD_NAME = "probesFor";
 
 //  private static InvokeReceiver                invokeQueue;
   private static int                           classId           = 0;
 
-  // array of probe hits, first slot indicates any hits to the class.
+  private static final boolean[][]             NO_CLASSES        = new boolean[0][];
+
+  // array of probe hits for each class, indexed by class id. First slot
+  // indicates any hits to the class.
   // testing suggests boolean array with synchronization to ensure happens
   // before relationship significantly outperforms
   // both AtomicInteger array with bit per flag and integer per flag.
   // optimisation with other methods of ensuring a happens before not yet
   // investigated
-  private static final Map<Integer, boolean[]> CLASS_HITS        = new ConcurrentHashMap<>();
+  // Each class has its own array rather than sharing one flat array, so that
+  // growing the table as classes load never loses hits written concurrently.
+  private static volatile boolean[][]          classHits         = NO_CLASSES;
+
+  // ids of the classes hit since the last reset, so that reset and
+  // getHits need only visit those classes rather than every class loaded
+  private static int[]                         touched           = new int[64];
+  private static int                           touchedCount      = 0;
+
+  // position of each class's first probe among all registered probes
+  private static int[]                         probeBase         = new int[0];
+  private static int                           totalProbes       = 0;
+
+  // AFL style hit counts for edges between blocks, indexed by the xor of the
+  // locations of the previous and current blocks. Shared between threads, so
+  // edges are approximate when code under test runs concurrently.
+  private static final int                     EDGE_BITS         = 16;
+  private static final int                     EDGE_MASK         = (1 << EDGE_BITS) - 1;
+  private static final int                     EDGE_BUCKETS      = 8;
+  public static final String                   EDGE_METHOD_NAME  = "visitEdge";
+
+  private static final int[]                   edgeHits          = new int[1 << EDGE_BITS];
+  private static final int[]                   touchedEdges      = new int[1 << EDGE_BITS];
+  private static int                           touchedEdgeCount  = 0;
+  private static int                           previousLocation  = 0;
+
+  // classes instrumented only to report when they are first reached, flagged
+  // by id once reached, and the ids reached since last taken
+  public static final String                   REACHED_METHOD_NAME = "reached";
+  private static volatile boolean[]            reachedFlags      = new boolean[0];
+  private static int[]                         reachedIds        = new int[16];
+  private static int                           reachedCount      = 0;
+  private static volatile Runnable             lazyInstrumenter;
 
   
   public static void init(final InvokeReceiver invokeQueue) {
@@ -63,15 +97,134 @@ public final class CodeCoverageStore {
   }
 
   public static void visitSingleProbe(final int classId, final int probe) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     bs[probe + 1] = true;
   }
 
+  /**
+   * Returns the array that probe hits for the class are recorded in, marking
+   * the class as hit. Probe n is recorded by writing to index n + 1 - the
+   * first slot is the class hit flag, and is cleared by {@link #reset()}, at
+   * which point the array must be fetched again.
+   * 
+   * Allows instrumented classes to hold the array in a static field and write
+   * to it directly, rather than calling the store on every method exit.
+   * 
+   * @param classId
+   *          id of class
+   * @return array of probe hits for the class
+   */
+  public static boolean[] probesFor(final int classId) { // NO_UCD
+    return hitsFor(classId);
+  }
+
+  /**
+   * Records that the block at the given location has been entered, counting a
+   * hit on the edge from the previously entered block.
+   * 
+   * @param location
+   *          location of the block, as returned by
+   *          {@link #edgeLocation(int, int)}
+   */
+  public static void visitEdge(final int location) { // NO_UCD
+    final int edge = location ^ previousLocation;
+    previousLocation = location >>> 1;
+    if (edgeHits[edge]++ == 0) {
+      // read once so that racing threads cannot write beyond the end
+      final int count = touchedEdgeCount;
+      if (count != touchedEdges.length) {
+        touchedEdges[count] = edge;
+        touchedEdgeCount = count + 1;
+      }
+    }
+  }
+
+  /**
+   * Records that a class instrumented to report when it is first reached has
+   * been entered.
+   * 
+   * @param classId
+   *          id of class
+   */
+  public static void reached(final int classId) { // NO_UCD
+    final boolean[] flags = reachedFlags;
+    if ((classId >= flags.length) || !flags[classId]) {
+      markReached(classId);
+    }
+  }
+
+  private static synchronized void markReached(final int classId) {
+    boolean[] flags = reachedFlags;
+    if (classId >= flags.length) {
+      flags = Arrays.copyOf(flags, Math.max(classId + 1, flags.length * 2));
+    } else if (flags[classId]) {
+      return;
+    }
+    flags[classId] = true;
+    reachedFlags = flags;
+    if (reachedCount == reachedIds.length) {
+      reachedIds = Arrays.copyOf(reachedIds, reachedCount * 2);
+    }
+    reachedIds[reachedCount] = classId;
+    reachedCount = reachedCount + 1;
+  }
+
+  /**
+   * Returns the ids of the classes reached since this method was last called
+   * 
+   * @return ids of reached classes
+   */
+  public static synchronized int[] takeReached() {
+    final int[] ids = Arrays.copyOf(reachedIds, reachedCount);
+    reachedCount = 0;
+    return ids;
+  }
+
+  /**
+   * Sets the action that instruments the classes reached so far, run by
+   * {@link #instrumentReachedClasses()}
+   * 
+   * @param instrumenter
+   *          action to run
+   */
+  public static void registerLazyInstrumenter(final Runnable instrumenter) {
+    lazyInstrumenter = instrumenter;
+  }
+
+  /**
+   * Instruments the classes reached since this method was last called, if
+   * classes are being instrumented lazily. Coverage of a class is recorded
+   * only once it has been instrumented, so this should be called between
+   * examples.
+   */
+  public static void instrumentReachedClasses() {
+    final Runnable instrumenter = lazyInstrumenter;
+    if (instrumenter != null) {
+      instrumenter.run();
+    }
+  }
+
+  /**
+   * Returns the location used to identify a probe when counting edges.
+   * Locations are spread pseudo randomly across the edge table so that xoring
+   * them gives well distributed edge ids.
+   * 
+   * @param classKey
+   *          value identifying the class, which unlike its id is the same in
+   *          every JVM, such as the hash of its name
+   * @param probe
+   *          probe within the class
+   * @return location of the probe
+   */
+  public static int edgeLocation(final int classKey, final int probe) {
+    long h = (((long) classKey << 32) | probe) * 0x9E3779B97F4A7C15L;
+    h = (h ^ (h >>> 29)) * 0xBF58476D1CE4E5B9L;
+    return (int) (h >>> 32) & EDGE_MASK;
+  }
+
   public static void visitProbes(final int classId, final int offset,
       final boolean[] probes) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     for (int i = 0; i != probes.length; i++) {
       if (probes[i]) {
         bs[i + offset + 1] = true;
@@ -88,8 +241,7 @@ public final class CodeCoverageStore {
 
   public static void visitProbes(final int classId, final int offset,
       final boolean p0) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -97,8 +249,7 @@ public final class CodeCoverageStore {
 
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -109,8 +260,7 @@ public final class CodeCoverageStore {
 
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -124,8 +274,7 @@ public final class CodeCoverageStore {
 
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2, final boolean p3) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -143,8 +292,7 @@ public final class CodeCoverageStore {
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -165,8 +313,7 @@ public final class CodeCoverageStore {
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -190,8 +337,7 @@ public final class CodeCoverageStore {
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -218,8 +364,7 @@ public final class CodeCoverageStore {
   public static void visitProbes(final int classId, final int offset,
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6, final boolean p7) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -250,8 +395,7 @@ public final class CodeCoverageStore {
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -285,8 +429,7 @@ public final class CodeCoverageStore {
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -323,8 +466,7 @@ public final class CodeCoverageStore {
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9, final boolean p10) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -364,8 +506,7 @@ public final class CodeCoverageStore {
       final boolean p0, final boolean p1, final boolean p2, final boolean p3,
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9, final boolean p10, final boolean p11) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -409,8 +550,7 @@ public final class CodeCoverageStore {
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9, final boolean p10, final boolean p11,
       final boolean p12) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -457,8 +597,7 @@ public final class CodeCoverageStore {
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9, final boolean p10, final boolean p11,
       final boolean p12, final boolean p13) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -508,8 +647,7 @@ public final class CodeCoverageStore {
       final boolean p4, final boolean p5, final boolean p6, final boolean p7,
       final boolean p8, final boolean p9, final boolean p10, final boolean p11,
       final boolean p12, final boolean p13, final boolean p14) { // NO_UCD
-    final boolean[] bs = CLASS_HITS.get(classId);
-    bs[CLASS_HIT_INDEX] = true;
+    final boolean[] bs = hitsFor(classId);
     if (p0) {
       bs[offset + 1] = true;
     }
@@ -557,21 +695,52 @@ public final class CodeCoverageStore {
     }
   }
 
+  private static boolean[] hitsFor(final int classId) {
+    final boolean[] bs = classHits[classId];
+    // first entry tracks if class has been visited at all
+    if (!bs[CLASS_HIT_INDEX]) {
+      markTouched(classId, bs);
+    }
+    return bs;
+  }
+
+  private static synchronized void markTouched(final int classId,
+      final boolean[] bs) {
+    if (bs[CLASS_HIT_INDEX]) {
+      return;
+    }
+    bs[CLASS_HIT_INDEX] = true;
+    if (touchedCount == touched.length) {
+      touched = Arrays.copyOf(touched, touchedCount * 2);
+    }
+    touched[touchedCount] = classId;
+    touchedCount = touchedCount + 1;
+  }
+
   public static synchronized void reset() {
-    for (final Entry<Integer, boolean[]> each : CLASS_HITS.entrySet()) {
-      CLASS_HITS.put(each.getKey(), new boolean[each.getValue().length]);
+    final boolean[][] hits = classHits;
+    for (int i = 0; i != touchedCount; i++) {
+      Arrays.fill(hits[touched[i]], false);
     }
+    touchedCount = 0;
+    resetEdges();
+  }
+
+  private static void resetEdges() {
+    final int count = touchedEdgeCount;
+    for (int i = 0; i != count; i++) {
+      edgeHits[touchedEdges[i]] = 0;
+    }
+    touchedEdgeCount = 0;
+    previousLocation = 0;
   }
 
   public static synchronized Collection<Long> getHits() {
+    final boolean[][] hits = classHits;
     final Collection<Long> blockHits = new ArrayList<>();
-    for (final Entry<Integer, boolean[]> each : CLASS_HITS.entrySet()) {
-      final boolean[] bs = each.getValue();
-      // first entry tracks if class has been visited at all
-      if (!bs[CLASS_HIT_INDEX]) {
-        continue;
-      }
-      final int classId = each.getKey();
+    for (int i = 0; i != touchedCount; i++) {
+      final int classId = touched[i];
+      final boolean[] bs = hits[classId];
       for (int probeId = 1; probeId != bs.length; probeId++) {
         if (bs[probeId]) {
           blockHits.add(encode(classId, probeId - 1));
@@ -581,6 +750,96 @@ public final class CodeCoverageStore {
     return blockHits;
   }
 
+  /**
+   * Writes the global ids of the probes hit since the last reset into the
+   * supplied array, without allocating. A probe's global id is its index
+   * among all registered probes, so is less than {@link #probeCount()}.
+   * 
+   * @param into
+   *          array to write ids to
+   * @return the number of probes hit. If greater than the length of the array
+   *         only the first ids will have been written, and the call should be
+   *         repeated with a larger array.
+   */
+  public static synchronized int getHitProbes(final int[] into) {
+    final boolean[][] hits = classHits;
+    int count = 0;
+    for (int i = 0; i != touchedCount; i++) {
+      final int classId = touched[i];
+      final boolean[] bs = hits[classId];
+      final int base = probeBase[classId];
+      for (int probeId = 1; probeId != bs.length; probeId++) {
+        if (bs[probeId]) {
+          if (count < into.length) {
+            into[count] = base + probeId - 1;
+          }
+          count = count + 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Writes the ids of the edges hit since the last reset, combined with a
+   * logarithmic bucket of the number of times each was hit, into the supplied
+   * array without allocating. Hit counts of 1, 2, 3, 4-7, 8-15, 16-31, 32-127
+   * and 128 or more fall into different buckets, so an example that runs a
+   * loop a different number of times produces different ids. Ids are less
+   * than {@link #edgeIdCount()}.
+   * 
+   * @param into
+   *          array to write ids to
+   * @return the number of edges hit. If greater than the length of the array
+   *         only the first ids will have been written, and the call should be
+   *         repeated with a larger array.
+   */
+  public static synchronized int getHitEdges(final int[] into) {
+    final int count = touchedEdgeCount;
+    for (int i = 0; i != count && i != into.length; i++) {
+      final int edge = touchedEdges[i];
+      into[i] = (edge * EDGE_BUCKETS) + bucket(edgeHits[edge]);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of distinct ids that can be returned by
+   * {@link #getHitEdges(int[])}
+   * 
+   * @return number of edge ids
+   */
+  public static int edgeIdCount() {
+    return (1 << EDGE_BITS) * EDGE_BUCKETS;
+  }
+
+  static int bucket(final int hits) {
+    // counts can only be below one if they have overflowed or raced a reset
+    if (hits < 1) {
+      return hits == 0 ? 0 : 7;
+    }
+    if (hits < 4) {
+      return hits - 1;
+    }
+    if (hits < 32) {
+      // 4-7, 8-15 and 16-31
+      return 32 - Integer.numberOfLeadingZeros(hits);
+    }
+    if (hits < 128) {
+      return 6;
+    }
+    return 7;
+  }
+
+  /**
+   * Returns the number of probes registered across all classes
+   * 
+   * @return number of probes
+   */
+  public static synchronized int probeCount() {
+    return totalProbes;
+  }
+
   public static int registerClass(final String className) {
     final int id = nextId();
     return id;
@@ -608,12 +867,36 @@ public final class CodeCoverageStore {
     return ((long) classId << 32) | line;
   }
 
-  public static void registerClassProbes(final int classId, int probeCount) {
-    CLASS_HITS.put(classId, new boolean[probeCount + 1]);
+  public static synchronized void registerClassProbes(final int classId,
+      int probeCount) {
+    boolean[][] hits = classHits;
+    if (classId >= hits.length) {
+      hits = Arrays.copyOf(hits, Math.max(classId + 1, hits.length * 2));
+      probeBase = Arrays.copyOf(probeBase, hits.length);
+    }
+    final boolean[] previous = hits[classId];
+    // a class registered again, such as when retransformed after a failed
+    // attempt, reuses its probes if there are enough of them
+    if ((previous == null) || (previous.length <= probeCount)) {
+      probeBase[classId] = totalProbes;
+      totalProbes = totalProbes + probeCount;
+    }
+    hits[classId] = new boolean[probeCount + 1];
+    // a class already in the touched list must not be added again
+    hits[classId][CLASS_HIT_INDEX] = previous != null
+        && previous[CLASS_HIT_INDEX];
+    classHits = hits;
   }
 
-  public static void resetAllStaticState() {
-    CLASS_HITS.clear();
+  public static synchronized void resetAllStaticState() {
+    classHits = NO_CLASSES;
+    touchedCount = 0;
+    probeBase = new int[0];
+    totalProbes = 0;
+    resetEdges();
+    reachedFlags = new boolean[0];
+    reachedCount = 0;
+    lazyInstrumenter = null;
   }
 
 }
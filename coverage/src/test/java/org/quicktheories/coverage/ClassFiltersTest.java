@@ -0,0 +1,72 @@
+package org.quicktheories.coverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.Predicate;
+
+import org.junit.Test;
+import org.quicktheories.coverage.codeassist.samples.ClassWithBranches;
+
+public class ClassFiltersTest {
+
+  private final ClassLoader loader = Thread.currentThread()
+      .getContextClassLoader();
+
+  @Test
+  public void shouldIncludeAllClassesByDefault() {
+    Predicate<String> testee = ClassFilters.create(null, null, loader);
+    assertThat(testee.test("com/example/Foo")).isTrue();
+    assertThat(testee.test("Foo")).isTrue();
+  }
+
+  @Test
+  public void shouldIncludeOnlyClassesMatchingIncludeGlobs() {
+    Predicate<String> testee = ClassFilters.create("com.example.*, org.foo.Bar",
+        null, loader);
+    assertThat(testee.test("com/example/Foo")).isTrue();
+    assertThat(testee.test("com/example/sub/Foo$1")).isTrue();
+    assertThat(testee.test("org/foo/Bar")).isTrue();
+    assertThat(testee.test("org/foo/Barn")).isFalse();
+    assertThat(testee.test("com/examples/Foo")).isFalse();
+  }
+
+  @Test
+  public void shouldExcludeClassesMatchingExcludeGlobs() {
+    Predicate<String> testee = ClassFilters.create("com.example.*",
+        "com.example.generated.*,*Test", loader);
+    assertThat(testee.test("com/example/Foo")).isTrue();
+    assertThat(testee.test("com/example/generated/Foo")).isFalse();
+    assertThat(testee.test("com/example/FooTest")).isFalse();
+  }
+
+  @Test
+  public void shouldAcceptBinaryOrInternalNames() {
+    Predicate<String> testee = ClassFilters.globs("com/example/F?o");
+    assertThat(testee.test("com.example.Foo")).isTrue();
+    assertThat(testee.test("com/example/Fao")).isTrue();
+    assertThat(testee.test("com/example/Fooo")).isFalse();
+  }
+
+  @Test
+  public void shouldTreatGlobCharactersOtherThanWildcardsLiterally() {
+    Predicate<String> testee = ClassFilters.globs("a.b$C");
+    assertThat(testee.test("a.b$C")).isTrue();
+    assertThat(testee.test("aXb$C")).isFalse();
+  }
+
+  @Test
+  public void shouldIncludeClassesFromDirectoriesInLocalMode() {
+    Predicate<String> testee = ClassFilters.create(Agent.LOCAL, null, loader);
+    assertThat(testee.test(ClassWithBranches.class.getName())).isTrue();
+    assertThat(testee.test(Test.class.getName().replace('.', '/'))).isFalse();
+  }
+
+  @Test
+  public void shouldApplyExcludesInLocalMode() {
+    Predicate<String> testee = ClassFilters.create(Agent.LOCAL, "*.samples.*",
+        loader);
+    assertThat(testee.test(ClassWithBranches.class.getName())).isFalse();
+    assertThat(testee.test(ClassFiltersTest.class.getName())).isTrue();
+  }
+
+}
@@ -0,0 +1,85 @@
+package org.quicktheories.coverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.quicktheories.core.Configuration;
+
+public class CorpusTest {
+
+  private final Corpus testee = new Corpus(Configuration.defaultPRNG(0));
+
+  @Test
+  public void shouldNotAddExamplesWithoutValues() {
+    assertThat(testee.add(new long[0], new long[0], new long[0],
+        new int[] { 1 }, 1)).isEqualTo(-1);
+    assertThat(testee.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepMutantsWithinConstraints() {
+    long[] min = { 0, -5, Long.MIN_VALUE };
+    long[] max = { 10, 5, Long.MAX_VALUE };
+    testee.add(new long[] { 3, 0, 0 }, min, max, new int[] { 1 }, 1);
+    testee.add(new long[] { 7, 5, -1 }, min, max, new int[] { 2 }, 1);
+
+    for (long[] each : testee.mutants(0, 1000)) {
+      for (int i = 0; i != each.length; i++) {
+        assertThat(each[i]).isBetween(min[i], max[i]);
+      }
+    }
+  }
+
+  @Test
+  public void shouldGiveMoreEnergyToEntriesHittingRarerProbes() {
+    long[] limits = { 0 };
+    testee.add(new long[] { 1 }, limits, limits, new int[] { 1, 2 }, 2);
+    testee.add(new long[] { 1 }, limits, limits, new int[] { 1, 3 }, 2);
+    for (int i = 0; i != 16; i++) {
+      testee.countHits(new int[] { 1, 2 }, 2);
+    }
+    testee.countHits(new int[] { 1, 3 }, 2);
+
+    assertThat(testee.energy(1)).isEqualTo(Corpus.MAX_ENERGY);
+    assertThat(testee.energy(0)).isEqualTo(Corpus.MAX_ENERGY / 16);
+  }
+
+  @Test
+  public void shouldScheduleAsManyMutantsAsEntryEnergy() {
+    long[] limits = { 0 };
+    testee.add(new long[] { 1 }, limits, limits, new int[] { 1 }, 1);
+    for (int i = 0; i != 4; i++) {
+      testee.countHits(new int[] { 1 }, 1);
+    }
+    assertThat(testee.schedule()).hasSize(Corpus.MAX_ENERGY / 4);
+  }
+
+  @Test
+  public void shouldRecalculateEnergyWhenHitCountsGrowAfterScheduling() {
+    long[] limits = { 0 };
+    testee.add(new long[] { 1 }, limits, limits, new int[] { 1 }, 1);
+    testee.countHits(new int[] { 1 }, 1);
+    assertThat(testee.schedule()).hasSize(Corpus.MAX_ENERGY);
+
+    testee.countHits(new int[] { 1 }, 1);
+    assertThat(testee.energy(0)).isEqualTo(Corpus.MAX_ENERGY / 2);
+    assertThat(testee.schedule()).hasSize(Corpus.MAX_ENERGY / 2);
+  }
+
+  @Test
+  public void shouldSpliceValuesFromOtherEntries() {
+    long[] min = { 0, 0, 0, 0 };
+    long[] max = { 100, 100, 100, 100 };
+    testee.add(new long[] { 1, 1, 1, 1 }, min, max, new int[] { 1 }, 1);
+    testee.add(new long[] { 99, 99, 99, 99 }, min, max, new int[] { 2 }, 1);
+
+    List<long[]> mutants = testee.mutants(0, 1000);
+    assertThat(mutants).anySatisfy(each -> {
+      assertThat(each[0]).isEqualTo(1);
+      assertThat(each[3]).isEqualTo(99);
+    });
+  }
+
+}
@@ -0,0 +1,78 @@
+package org.quicktheories.coverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class CoverageBitmapTest {
+
+  private final CoverageBitmap testee = new CoverageBitmap();
+
+  @Test
+  public void shouldReportNewCoverageForFirstExample() {
+    assertThat(testee.record(new int[] { 1, 2 }, 2)).isTrue();
+  }
+
+  @Test
+  public void shouldNotReportNewCoverageForExampleWithNoHits() {
+    assertThat(testee.record(new int[0], 0)).isFalse();
+  }
+
+  @Test
+  public void shouldNotReportNewCoverageForProbesAlreadyMerged() {
+    testee.record(new int[] { 1, 2, 70 }, 3);
+    testee.merge();
+    assertThat(testee.record(new int[] { 70, 2 }, 2)).isFalse();
+  }
+
+  @Test
+  public void shouldReportNewCoverageWhenAnyProbeIsNew() {
+    testee.record(new int[] { 1, 2 }, 2);
+    testee.merge();
+    assertThat(testee.record(new int[] { 2, 3 }, 2)).isTrue();
+  }
+
+  @Test
+  public void shouldNotRetainExamplesThatWereNotMerged() {
+    testee.record(new int[] { 1 }, 1);
+    testee.record(new int[] { 2 }, 1);
+    testee.merge();
+    assertThat(testee.record(new int[] { 1 }, 1)).isTrue();
+    assertThat(testee.visitedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldOnlyReadTheGivenNumberOfProbes() {
+    testee.record(new int[] { 1, 2 }, 1);
+    testee.merge();
+    assertThat(testee.visitedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldGrowToHoldLargeProbeIds() {
+    testee.record(new int[] { 100000 }, 1);
+    testee.merge();
+    assertThat(testee.record(new int[] { 100000 }, 1)).isFalse();
+    assertThat(testee.visitedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldGiveSameFingerprintForSameProbesInAnyOrder() {
+    testee.record(new int[] { 1, 64, 7 }, 3);
+    long a = testee.fingerprint();
+    testee.record(new int[] { 7, 1, 64 }, 3);
+    assertThat(testee.fingerprint()).isEqualTo(a);
+  }
+
+  @Test
+  public void shouldGiveDifferentFingerprintsForDifferentProbes() {
+    testee.record(new int[] { 1, 2 }, 2);
+    long a = testee.fingerprint();
+    testee.record(new int[] { 1, 3 }, 2);
+    long b = testee.fingerprint();
+    testee.record(new int[0], 0);
+    assertThat(a).isNotEqualTo(b);
+    assertThat(testee.fingerprint()).isNotEqualTo(a).isNotEqualTo(b);
+  }
+
+}
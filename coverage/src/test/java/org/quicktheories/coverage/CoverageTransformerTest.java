@@ -1,5 +1,6 @@
 package org.quicktheories.coverage;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -8,21 +9,34 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.instrument.IllegalClassFormatException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.util.ASMifier;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
+import org.quicktheories.coverage.codeassist.samples.ClassWithBranches;
+import org.quicktheories.coverage.codeassist.samples.ClassWithLoop;
 import org.quicktheories.coverage.codeassist.samples.LambdasInDefaultMethods;
 
 import sun.quicktheories.coverage.CodeCoverageStore;
@@ -30,6 +44,9 @@ import sun.quicktheories.coverage.InvokeReceiver;
 
 public class CoverageTransformerTest {
 
+  @Rule
+  public TemporaryFolder             folder = new TemporaryFolder();
+
   private final ClassLoader          loader = Thread.currentThread().getContextClassLoader();
 
 
@@ -86,6 +103,398 @@ public class CoverageTransformerTest {
     clazz.getName();
   }
 
+  @Test
+  public void shouldAddSyntheticProbeFieldToClassesBeingLoaded()
+      throws Exception {
+    Class<?> clazz = load(ClassWithBranches.class, null);
+    Field field = clazz
+        .getDeclaredField(CoverageClassVisitor.PROBE_FIELD_NAME);
+    assertTrue(field.isSynthetic());
+    assertTrue(Modifier.isPrivate(field.getModifiers()));
+    assertTrue(Modifier.isStatic(field.getModifiers()));
+  }
+
+  @Test
+  public void shouldNotAddProbeFieldWhenRetransformingClassWithoutOne()
+      throws Exception {
+    Class<?> clazz = load(ClassWithBranches.class, ClassWithBranches.class);
+    assertFalse(hasProbeField(clazz));
+  }
+
+  @Test
+  public void shouldNotAddProbeFieldToInterfaces() throws Exception {
+    Class<?> clazz = load(LambdasInDefaultMethods.class, null);
+    assertFalse(hasProbeField(clazz));
+  }
+
+  @Test
+  public void shouldKeepProbeFieldWhenRetransformingClassWithOne()
+      throws Exception {
+    Class<?> clazz = load(ClassWithBranches.class, null);
+    final byte[] bs = new CoverageTransformer(s -> true).transform(
+        this.loader, ClassWithBranches.class.getName(), clazz, null,
+        branchesBytes());
+    assertTrue(hasProbeField(new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs)));
+  }
+
+  @Test
+  public void shouldRecordSameProbesWithStaticFieldAsWithoutOne()
+      throws Exception {
+    IntUnaryOperator withField = instance(load(ClassWithBranches.class, null));
+    IntUnaryOperator withoutField = instance(
+        load(ClassWithBranches.class, ClassWithBranches.class));
+
+    for (int i = -1; i != 2; i++) {
+      CodeCoverageStore.reset();
+      withField.applyAsInt(i);
+      Set<Integer> fieldProbes = probesHit();
+
+      CodeCoverageStore.reset();
+      withoutField.applyAsInt(i);
+      assertEquals(probesHit(), fieldProbes);
+    }
+  }
+
+  @Test
+  public void shouldRecordProbesWrittenToStaticFieldAfterReset()
+      throws Exception {
+    IntUnaryOperator testee = instance(load(ClassWithBranches.class, null));
+    testee.applyAsInt(1);
+    CodeCoverageStore.reset();
+    assertTrue(CodeCoverageStore.getHits().isEmpty());
+
+    testee.applyAsInt(1);
+    assertFalse(CodeCoverageStore.getHits().isEmpty());
+  }
+
+  @Test
+  public void shouldNotCountEdgesUnlessRequested() throws Exception {
+    instance(load(ClassWithLoop.class, null)).applyAsInt(10);
+    assertEquals(0, edgesHit().size());
+  }
+
+  @Test
+  public void shouldCountEdgesWhenRequested() throws Exception {
+    instance(load(ClassWithLoop.class, null, true)).applyAsInt(10);
+    assertTrue(edgesHit().size() > 0);
+  }
+
+  @Test
+  public void shouldRecordDifferentEdgesForDifferentNumbersOfLoopIterations()
+      throws Exception {
+    IntUnaryOperator testee = instance(load(ClassWithLoop.class, null, true));
+    CodeCoverageStore.reset();
+    testee.applyAsInt(1);
+    Set<Integer> once = edgesHit();
+
+    CodeCoverageStore.reset();
+    testee.applyAsInt(1);
+    assertEquals(once, edgesHit());
+
+    CodeCoverageStore.reset();
+    testee.applyAsInt(20);
+    assertFalse(once.equals(edgesHit()));
+  }
+
+  @Test
+  public void shouldCountEdgesWhenRetransforming() throws Exception {
+    instance(load(ClassWithLoop.class, ClassWithLoop.class, true))
+        .applyAsInt(10);
+    assertTrue(edgesHit().size() > 0);
+  }
+
+  @Test
+  public void shouldRecordSameProbesWithClassesFromCache() throws Exception {
+    final TransformedClassCache cache = new TransformedClassCache(
+        this.folder.getRoot().toPath());
+    IntUnaryOperator instrumented = instance(defineWithCache(cache));
+    IntUnaryOperator cached = instance(defineWithCache(cache));
+
+    for (int i = -1; i != 2; i++) {
+      CodeCoverageStore.reset();
+      instrumented.applyAsInt(i);
+      Set<Integer> probes = probesHit();
+
+      CodeCoverageStore.reset();
+      cached.applyAsInt(i);
+      assertEquals(probes, probesHit());
+    }
+  }
+
+  @Test
+  public void shouldUseCachedClassInPlaceOfInstrumenting() throws Exception {
+    final TransformedClassCache cache = new TransformedClassCache(
+        this.folder.getRoot().toPath());
+    final byte[] original = branchesBytes();
+    cache.put(cacheKey(original), new TransformedClassCache.Entry(original, 0,
+        -1, Collections.emptyMap()));
+
+    assertTrue(Arrays.equals(original, transformWithCache(cache, original)));
+  }
+
+  @Test
+  public void shouldNotUseCachedClassWhenClassHierarchyHasChanged()
+      throws Exception {
+    final TransformedClassCache cache = new TransformedClassCache(
+        this.folder.getRoot().toPath());
+    final byte[] original = branchesBytes();
+    cache.put(cacheKey(original), new TransformedClassCache.Entry(original, 0,
+        -1, Collections.singletonMap("java/lang/Integer;java/lang/Long",
+            "java/lang/String")));
+
+    assertFalse(Arrays.equals(original, transformWithCache(cache, original)));
+  }
+
+  @Test
+  public void shouldNotInstrumentCachedClassesWithPlaceholderId()
+      throws Exception {
+    final TransformedClassCache cache = new TransformedClassCache(
+        this.folder.getRoot().toPath());
+    final byte[] bs = transformWithCache(cache, branchesBytes());
+    assertTrue(TransformedClassCache.canUsePlaceholder(bs));
+  }
+
+  @Test
+  public void shouldReturnPreparedClassesWhenRetransforming()
+      throws Exception {
+    final CoverageTransformer testee = new CoverageTransformer(s -> true);
+    testee.prepareRetransform(
+        Arrays.asList(ClassWithBranches.class, ClassWithLoop.class), 2);
+
+    final byte[] bs = testee.transform(this.loader,
+        ClassWithBranches.class.getName(), ClassWithBranches.class, null,
+        branchesBytes());
+    IntUnaryOperator prepared = instance(new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs));
+    IntUnaryOperator retransformed = instance(
+        load(ClassWithBranches.class, ClassWithBranches.class));
+
+    for (int i = -1; i != 2; i++) {
+      CodeCoverageStore.reset();
+      prepared.applyAsInt(i);
+      Set<Integer> preparedProbes = probesHit();
+
+      CodeCoverageStore.reset();
+      retransformed.applyAsInt(i);
+      assertEquals(probesHit(), preparedProbes);
+    }
+  }
+
+  @Test
+  public void shouldInstrumentSuppliedBytesWhenTheyDifferFromPreparedClass()
+      throws Exception {
+    final CoverageTransformer testee = new CoverageTransformer(s -> true);
+    testee.prepareRetransform(
+        Collections.singletonList(ClassWithBranches.class), 1);
+
+    final byte[] bs = testee.transform(this.loader,
+        ClassWithBranches.class.getName(), ClassWithBranches.class, null,
+        withSourceFile(branchesBytes(), "Changed.java"));
+    assertEquals("Changed.java", sourceFileOf(bs));
+  }
+
+  @Test
+  public void shouldRegisterProbesOfPreparedClassesOnlyWhenReturned()
+      throws Exception {
+    CodeCoverageStore.resetAllStaticState();
+    final CoverageTransformer testee = new CoverageTransformer(s -> true);
+    testee.prepareRetransform(
+        Collections.singletonList(ClassWithBranches.class), 1);
+    assertEquals(0, CodeCoverageStore.probeCount());
+
+    testee.transform(this.loader, ClassWithBranches.class.getName(),
+        ClassWithBranches.class, null, branchesBytes());
+    final int probes = CodeCoverageStore.probeCount();
+    assertTrue(probes > 0);
+
+    // retransformed again from the supplied bytes after a failed batch
+    testee.discardPrepared(ClassWithBranches.class);
+    testee.transform(this.loader, ClassWithBranches.class.getName(),
+        ClassWithBranches.class, null, branchesBytes());
+    assertEquals(probes, CodeCoverageStore.probeCount());
+  }
+
+  @Test
+  public void shouldNotReturnPreparedClassesOnceDiscarded()
+      throws Exception {
+    final CoverageTransformer testee = new CoverageTransformer(s -> true);
+    testee.prepareRetransform(
+        Collections.singletonList(ClassWithBranches.class), 1);
+    testee.discardPrepared();
+
+    final byte[] original = branchesBytes();
+    final byte[] bs = testee.transform(this.loader,
+        ClassWithBranches.class.getName(), ClassWithBranches.class, null,
+        original);
+    assertFalse(hasProbeField(new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs)));
+    assertFalse(Arrays.equals(original, bs));
+  }
+
+  @Test
+  public void shouldNotPrepareClassesNotMatchingPredicate()
+      throws IllegalClassFormatException {
+    final CoverageTransformer testee = new CoverageTransformer(
+        s -> !s.endsWith("ClassWithBranches"));
+    testee.prepareRetransform(
+        Collections.singletonList(ClassWithBranches.class), 1);
+    assertNull(testee.transform(this.loader,
+        ClassWithBranches.class.getName(), ClassWithBranches.class, null,
+        new byte[0]));
+  }
+
+  @Test
+  public void shouldReportLazilyInstrumentedClassesOnceReached()
+      throws Exception {
+    final CoverageTransformer testee = lazyTransformer();
+    final DynamicClassLoader classLoader = new DynamicClassLoader();
+    final Class<?> clazz = defineLazily(testee, classLoader);
+    assertTrue(testee.takeReachedClasses().isEmpty());
+
+    instance(clazz).applyAsInt(1);
+    assertEquals(Collections.singletonList(clazz),
+        testee.takeReachedClasses());
+    assertTrue(probesHit().isEmpty());
+
+    instance(clazz).applyAsInt(1);
+    assertTrue(testee.takeReachedClasses().isEmpty());
+  }
+
+  @Test
+  public void shouldAddProbeFieldToLazilyInstrumentedClassesBeingLoaded()
+      throws Exception {
+    assertTrue(hasProbeField(
+        defineLazily(lazyTransformer(), new DynamicClassLoader())));
+
+    final byte[] bs = lazyTransformer().transform(this.loader,
+        ClassWithBranches.class.getName(), ClassWithBranches.class, null,
+        branchesBytes());
+    assertFalse(hasProbeField(new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs)));
+  }
+
+  @Test
+  public void shouldInstrumentReachedClassesWithProbesWhenRetransformed()
+      throws Exception {
+    final CoverageTransformer testee = lazyTransformer();
+    final Class<?> clazz = defineLazily(testee, new DynamicClassLoader());
+    instance(clazz).applyAsInt(1);
+    testee.takeReachedClasses();
+
+    final byte[] bs = testee.transform(this.loader,
+        ClassWithBranches.class.getName(), clazz, null, branchesBytes());
+    final Class<?> retransformed = new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs);
+    assertTrue(hasProbeField(retransformed));
+
+    final IntUnaryOperator lazy = instance(retransformed);
+    CodeCoverageStore.reset();
+    lazy.applyAsInt(1);
+    final Set<Integer> lazyProbes = probesHit();
+
+    final IntUnaryOperator eager = instance(load(ClassWithBranches.class, null));
+    CodeCoverageStore.reset();
+    eager.applyAsInt(1);
+    assertEquals(probesHit(), lazyProbes);
+  }
+
+  private CoverageTransformer lazyTransformer() {
+    return new CoverageTransformer(s -> true, false, true, Optional.empty());
+  }
+
+  private Class<?> defineLazily(final CoverageTransformer transformer,
+      final DynamicClassLoader classLoader)
+      throws IllegalClassFormatException {
+    final byte[] bs = transformer.transform(classLoader,
+        ClassWithBranches.class.getName().replace('.', '/'), null, null,
+        branchesBytes());
+    return classLoader.defineClass(ClassWithBranches.class.getName(), bs);
+  }
+
+  private Class<?> defineWithCache(final TransformedClassCache cache)
+      throws IllegalClassFormatException {
+    final byte[] bs = transformWithCache(cache, branchesBytes());
+    return new DynamicClassLoader()
+        .defineClass(ClassWithBranches.class.getName(), bs);
+  }
+
+  private byte[] transformWithCache(final TransformedClassCache cache,
+      final byte[] original) throws IllegalClassFormatException {
+    return new CoverageTransformer(s -> true, false, Optional.of(cache))
+        .transform(this.loader, ClassWithBranches.class.getName(), null, null,
+            original);
+  }
+
+  private byte[] branchesBytes() {
+    return this.bytes.getBytes(ClassWithBranches.class.getName()).get();
+  }
+
+  private static byte[] withSourceFile(final byte[] original,
+      final String source) {
+    final ClassReader reader = new ClassReader(original);
+    final ClassWriter writer = new ClassWriter(reader, 0);
+    reader.accept(new ClassVisitor(Opcodes.ASM7, writer) {
+      @Override
+      public void visitSource(final String s, final String debug) {
+        super.visitSource(source, debug);
+      }
+    }, 0);
+    return writer.toByteArray();
+  }
+
+  private static String sourceFileOf(final byte[] bs) {
+    final String[] source = new String[1];
+    new ClassReader(bs).accept(new ClassVisitor(Opcodes.ASM7) {
+      @Override
+      public void visitSource(final String s, final String debug) {
+        source[0] = s;
+      }
+    }, 0);
+    return source[0];
+  }
+
+  private static String cacheKey(final byte[] original) {
+    // classes being loaded are instrumented with static probes
+    return TransformedClassCache.keyFor(original, 1);
+  }
+
+  private Class<?> load(final Class<?> clazz,
+      final Class<?> classBeingRedefined) throws IllegalClassFormatException {
+    return load(clazz, classBeingRedefined, false);
+  }
+
+  private Class<?> load(final Class<?> clazz,
+      final Class<?> classBeingRedefined, final boolean countEdges)
+      throws IllegalClassFormatException {
+    final CoverageTransformer testee = new CoverageTransformer(s -> true,
+        countEdges);
+    final byte[] bs = testee.transform(this.loader, clazz.getName(),
+        classBeingRedefined, null, this.bytes.getBytes(clazz.getName()).get());
+    return new DynamicClassLoader().defineClass(clazz.getName(), bs);
+  }
+
+  private static IntUnaryOperator instance(final Class<?> clazz)
+      throws ReflectiveOperationException {
+    return (IntUnaryOperator) clazz.newInstance();
+  }
+
+  private static boolean hasProbeField(final Class<?> clazz) {
+    return Arrays.stream(clazz.getDeclaredFields()).anyMatch(
+        f -> f.getName().equals(CoverageClassVisitor.PROBE_FIELD_NAME));
+  }
+
+  private static Set<Integer> edgesHit() {
+    final int[] edges = new int[1024];
+    final int count = CodeCoverageStore.getHitEdges(edges);
+    return Arrays.stream(edges, 0, count).boxed().collect(Collectors.toSet());
+  }
+
+  private static Set<Integer> probesHit() {
+    return CodeCoverageStore.getHits().stream()
+        .map(CodeCoverageStore::decodeLineId).collect(Collectors.toSet());
+  }
+
   private byte[] assertValidClass(final Class<?> clazz)
       throws IllegalClassFormatException {
     final byte[] bs = transform(clazz);
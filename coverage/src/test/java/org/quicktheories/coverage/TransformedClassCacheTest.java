@@ -0,0 +1,163 @@
+package org.quicktheories.coverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransformedClassCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldMissWhenNothingStored() throws IOException {
+    TransformedClassCache testee = cache();
+    assertThat(testee.get(key("foo"))).isEmpty();
+  }
+
+  @Test
+  public void shouldReturnStoredEntry() throws IOException {
+    TransformedClassCache testee = cache();
+    Map<String, String> supers = Collections
+        .singletonMap("java/lang/Integer;java/lang/Long", "java/lang/Number");
+    testee.put(key("foo"),
+        new TransformedClassCache.Entry(new byte[] { 1, 2, 3 }, 7, -1, supers));
+
+    TransformedClassCache.Entry actual = new TransformedClassCache(
+        folder.getRoot().toPath()).get(key("foo")).get();
+    assertThat(actual.probeCount()).isEqualTo(7);
+    assertThat(actual.commonSuperClasses()).isEqualTo(supers);
+    assertThat(actual.withClassId(42)).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void shouldNotReturnEntriesStoredUnderOtherKeys() throws IOException {
+    TransformedClassCache testee = cache();
+    testee.put(key("foo"), entry(new byte[] { 1 }, -1));
+    assertThat(testee.get(key("bar"))).isEmpty();
+  }
+
+  @Test
+  public void shouldReplacePlaceholderWithClassId() {
+    TransformedClassCache.Entry testee = entry(new byte[] { 9, 0, 0, 0, 0, 9 },
+        1);
+    assertThat(testee.withClassId(0x01020304))
+        .containsExactly(9, 1, 2, 3, 4, 9);
+    assertThat(testee.withClassId(5)).containsExactly(9, 0, 0, 0, 5, 9);
+  }
+
+  @Test
+  public void shouldTreatCorruptEntriesAsMisses() throws IOException {
+    TransformedClassCache testee = cache();
+    testee.put(key("foo"), entry(new byte[] { 1, 2, 3 }, -1));
+    try (Stream<Path> files = Files.walk(folder.getRoot().toPath())) {
+      files.filter(Files::isRegularFile).forEach(f -> truncate(f));
+    }
+    assertThat(testee.get(key("foo"))).isEmpty();
+  }
+
+  @Test
+  public void shouldTreatEntriesWithChangedContentsAsMisses()
+      throws IOException {
+    TransformedClassCache testee = cache();
+    testee.put(key("foo"), entry(new byte[] { 1, 2, 3 }, -1));
+    try (Stream<Path> files = Files.walk(folder.getRoot().toPath())) {
+      files.filter(Files::isRegularFile).forEach(f -> flipLastByte(f));
+    }
+    assertThat(testee.get(key("foo"))).isEmpty();
+  }
+
+  @Test
+  public void shouldCreateCacheDirectoryReadableOnlyByOwner()
+      throws IOException {
+    assumePosix();
+    Path directory = folder.getRoot().toPath().resolve("cache");
+    assertThat(TransformedClassCache.open(directory)).isPresent();
+    assertThat(Files.getPosixFilePermissions(directory)).containsOnly(
+        PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+        PosixFilePermission.OWNER_EXECUTE);
+  }
+
+  @Test
+  public void shouldNotOpenCacheInDirectoryOthersCanWrite()
+      throws IOException {
+    assumePosix();
+    Path directory = folder.newFolder("shared").toPath();
+    Files.setPosixFilePermissions(directory,
+        PosixFilePermissions.fromString("rwxrwxrwx"));
+    assertThat(TransformedClassCache.open(directory)).isEmpty();
+  }
+
+  @Test
+  public void shouldLeaveNoTemporaryFiles() throws IOException {
+    TransformedClassCache testee = cache();
+    testee.put(key("foo"), entry(new byte[] { 1, 2, 3 }, -1));
+    testee.put(key("foo"), entry(new byte[] { 1, 2, 3 }, -1));
+    try (Stream<Path> files = Files.walk(folder.getRoot().toPath())) {
+      assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+    }
+  }
+
+  @Test
+  public void shouldGiveDifferentKeysForDifferentOptions() {
+    byte[] bs = { 1, 2, 3 };
+    assertThat(TransformedClassCache.keyFor(bs, 0))
+        .isEqualTo(TransformedClassCache.keyFor(bs, 0))
+        .isNotEqualTo(TransformedClassCache.keyFor(bs, 1));
+  }
+
+  @Test
+  public void shouldGiveDifferentKeysForDifferentClasses() {
+    assertThat(TransformedClassCache.keyFor(new byte[] { 1, 2, 3 }, 0))
+        .isNotEqualTo(TransformedClassCache.keyFor(new byte[] { 1, 2, 4 }, 0));
+  }
+
+  private TransformedClassCache cache() {
+    return new TransformedClassCache(folder.getRoot().toPath());
+  }
+
+  private static String key(String s) {
+    return TransformedClassCache.keyFor(s.getBytes(), 0);
+  }
+
+  private static TransformedClassCache.Entry entry(byte[] bs, int offset) {
+    return new TransformedClassCache.Entry(bs, 0, offset,
+        Collections.emptyMap());
+  }
+
+  private void assumePosix() {
+    assumeTrue(folder.getRoot().toPath().getFileSystem()
+        .supportedFileAttributeViews().contains("posix"));
+  }
+
+  private static void flipLastByte(Path file) {
+    try {
+      byte[] bs = Files.readAllBytes(file);
+      bs[bs.length - 1] = (byte) ~bs[bs.length - 1];
+      Files.write(file, bs);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void truncate(Path file) {
+    try {
+      Files.write(file, new byte[] { 0x51, 0x54 });
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+package org.quicktheories.coverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TypeHierarchyTest {
+
+  private final List<String>         reads  = new ArrayList<>();
+  private final ClassByteArraySource source = countingSource();
+
+  @Test
+  public void shouldReadSuperClassInterfacesAndKind() {
+    TypeHierarchy testee = new TypeHierarchy();
+    TypeHierarchy.Type list = testee.typeOf("java/util/ArrayList", source);
+    assertThat(list.superName()).isEqualTo("java/util/AbstractList");
+    assertThat(list.interfaces()).contains("java/util/List");
+    assertThat(list.isInterface()).isFalse();
+    assertThat(testee.typeOf("java/util/List", source).isInterface())
+        .isTrue();
+  }
+
+  @Test
+  public void shouldReadEachTypeOnce() {
+    TypeHierarchy testee = new TypeHierarchy();
+    testee.typeOf("java/util/ArrayList", source);
+    testee.typeOf("java/util/ArrayList", source);
+    testee.typeOf("java/util/ArrayList", new ClassloaderByteArraySource(
+        ClassLoader.getSystemClassLoader()));
+    assertThat(reads).containsExactly("java/util/ArrayList");
+  }
+
+  @Test
+  public void shouldDropLeastRecentlyUsedTypesWhenFull() {
+    TypeHierarchy testee = new TypeHierarchy(2);
+    testee.typeOf("java/util/ArrayList", source);
+    testee.typeOf("java/util/List", source);
+    testee.typeOf("java/util/ArrayList", source);
+    testee.typeOf("java/lang/String", source);
+    assertThat(testee.size()).isEqualTo(2);
+
+    testee.typeOf("java/util/ArrayList", source);
+    testee.typeOf("java/util/List", source);
+    assertThat(reads).containsExactly("java/util/ArrayList", "java/util/List",
+        "java/lang/String", "java/util/List");
+  }
+
+  @Test
+  public void shouldNotCacheMissingTypes() {
+    TypeHierarchy testee = new TypeHierarchy();
+    assertThatThrownBy(() -> testee.typeOf("com/example/Missing", source))
+        .isInstanceOf(RuntimeException.class);
+    assertThat(testee.size()).isEqualTo(0);
+  }
+
+  private ClassByteArraySource countingSource() {
+    ClassByteArraySource delegate = new ClassloaderByteArraySource(
+        ClassLoader.getSystemClassLoader());
+    return name -> {
+      reads.add(name);
+      return delegate.getBytes(name);
+    };
+  }
+
+}
@@ -0,0 +1,28 @@
+package org.quicktheories.coverage.codeassist.samples;
+
+import java.util.function.IntUnaryOperator;
+
+public class ClassWithBranches implements IntUnaryOperator {
+
+  private final int offset;
+
+  public ClassWithBranches() {
+    this(0);
+  }
+
+  public ClassWithBranches(int offset) {
+    this.offset = offset > 0 ? offset : 0;
+  }
+
+  @Override
+  public int applyAsInt(int i) {
+    if (i < 0) {
+      return -1 + this.offset;
+    }
+    if (i == 0) {
+      return this.offset;
+    }
+    return 1 + this.offset;
+  }
+
+}
@@ -0,0 +1,16 @@
+package org.quicktheories.coverage.codeassist.samples;
+
+import java.util.function.IntUnaryOperator;
+
+public class ClassWithLoop implements IntUnaryOperator {
+
+  @Override
+  public int applyAsInt(int iterations) {
+    int total = 0;
+    for (int i = 0; i != iterations; i++) {
+      total = total + i;
+    }
+    return total;
+  }
+
+}
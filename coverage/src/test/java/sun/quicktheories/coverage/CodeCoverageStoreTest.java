@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -92,6 +93,169 @@ public class CodeCoverageStoreTest {
     assertEquals(Collections.emptyList(), actual);
   }
 
+  @Test
+  public void shouldReportHitsMadeAfterReset() {
+    final int classId = CodeCoverageStore.registerClass("foo");
+    CodeCoverageStore.registerClassProbes(classId, 2);
+
+    CodeCoverageStore.visitProbes(classId, 0, true, false);
+    CodeCoverageStore.reset();
+    CodeCoverageStore.visitProbes(classId, 0, false, true);
+
+    assertThat(CodeCoverageStore.getHits())
+        .containsExactly(CodeCoverageStore.encode(classId, 1));
+  }
+
+  @Test
+  public void shouldReportHitsOfEachClassOnce() {
+    final int classId = CodeCoverageStore.registerClass("foo");
+    CodeCoverageStore.registerClassProbes(classId, 1);
+
+    CodeCoverageStore.visitSingleProbe(classId, 0);
+    CodeCoverageStore.registerClassProbes(classId, 1);
+    CodeCoverageStore.visitSingleProbe(classId, 0);
+
+    assertThat(CodeCoverageStore.getHits())
+        .containsExactly(CodeCoverageStore.encode(classId, 0));
+  }
+
+  @Test
+  public void shouldReportHitsAcrossManyClasses() {
+    final int[] ids = new int[1000];
+    for (int i = 0; i != ids.length; i++) {
+      ids[i] = CodeCoverageStore.registerClass("foo" + i);
+      CodeCoverageStore.registerClassProbes(ids[i], 1);
+    }
+    for (final int each : ids) {
+      CodeCoverageStore.visitSingleProbe(each, 0);
+    }
+
+    assertThat(CodeCoverageStore.getHits()).hasSize(ids.length);
+    CodeCoverageStore.reset();
+    assertThat(CodeCoverageStore.getHits()).isEmpty();
+  }
+
+  @Test
+  public void shouldNumberProbesAcrossAllClasses() {
+    final int foo = CodeCoverageStore.registerClass("foo");
+    CodeCoverageStore.registerClassProbes(foo, 3);
+    final int bar = CodeCoverageStore.registerClass("bar");
+    CodeCoverageStore.registerClassProbes(bar, 2);
+
+    CodeCoverageStore.visitProbes(bar, 0, false, true);
+    CodeCoverageStore.visitProbes(foo, 0, true, false, true);
+
+    final int[] probes = new int[3];
+    assertThat(CodeCoverageStore.getHitProbes(probes)).isEqualTo(3);
+    assertThat(probes).containsExactlyInAnyOrder(0, 2, 4);
+    assertThat(CodeCoverageStore.probeCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldCountAllHitProbesWhenArrayIsTooSmall() {
+    final int classId = CodeCoverageStore.registerClass("foo");
+    CodeCoverageStore.registerClassProbes(classId, 3);
+
+    CodeCoverageStore.visitProbes(classId, 0, true, true, true);
+
+    final int[] probes = new int[2];
+    assertThat(CodeCoverageStore.getHitProbes(probes)).isEqualTo(3);
+    assertThat(probes).containsExactly(0, 1);
+  }
+
+  @Test
+  public void shouldReportEachReachedClassOnce() {
+    CodeCoverageStore.reached(3);
+    CodeCoverageStore.reached(100);
+    CodeCoverageStore.reached(3);
+    assertThat(CodeCoverageStore.takeReached()).containsExactly(3, 100);
+
+    CodeCoverageStore.reached(3);
+    assertThat(CodeCoverageStore.takeReached()).isEmpty();
+  }
+
+  @Test
+  public void shouldRunLazyInstrumenterWhenOneIsRegistered() {
+    final int[] runs = new int[1];
+    CodeCoverageStore.instrumentReachedClasses();
+    CodeCoverageStore.registerLazyInstrumenter(() -> runs[0]++);
+    CodeCoverageStore.instrumentReachedClasses();
+    assertThat(runs[0]).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBucketEdgeHitCountsLogarithmically() {
+    assertThat(CodeCoverageStore.bucket(1)).isEqualTo(0);
+    assertThat(CodeCoverageStore.bucket(2)).isEqualTo(1);
+    assertThat(CodeCoverageStore.bucket(3)).isEqualTo(2);
+    assertThat(CodeCoverageStore.bucket(4)).isEqualTo(3);
+    assertThat(CodeCoverageStore.bucket(7)).isEqualTo(3);
+    assertThat(CodeCoverageStore.bucket(8)).isEqualTo(4);
+    assertThat(CodeCoverageStore.bucket(15)).isEqualTo(4);
+    assertThat(CodeCoverageStore.bucket(16)).isEqualTo(5);
+    assertThat(CodeCoverageStore.bucket(31)).isEqualTo(5);
+    assertThat(CodeCoverageStore.bucket(32)).isEqualTo(6);
+    assertThat(CodeCoverageStore.bucket(127)).isEqualTo(6);
+    assertThat(CodeCoverageStore.bucket(128)).isEqualTo(7);
+    assertThat(CodeCoverageStore.bucket(Integer.MIN_VALUE)).isEqualTo(7);
+  }
+
+  @Test
+  public void shouldGiveDifferentEdgesForDifferentPreviousBlocks() {
+    final int a = CodeCoverageStore.edgeLocation(0, 0);
+    final int b = CodeCoverageStore.edgeLocation(0, 1);
+    final int c = CodeCoverageStore.edgeLocation(0, 2);
+
+    CodeCoverageStore.visitEdge(a);
+    CodeCoverageStore.visitEdge(c);
+    final int[] viaA = edgesHit();
+
+    CodeCoverageStore.reset();
+    CodeCoverageStore.visitEdge(b);
+    CodeCoverageStore.visitEdge(c);
+
+    assertThat(edgesHit()).hasSize(2).isNotEqualTo(viaA);
+  }
+
+  @Test
+  public void shouldGiveDifferentEdgeIdsForDifferentHitCountBuckets() {
+    final int loop = CodeCoverageStore.edgeLocation(0, 0);
+
+    // first visit enters the loop, later visits repeat the back edge
+    CodeCoverageStore.visitEdge(loop);
+    CodeCoverageStore.visitEdge(loop);
+    final int[] once = edgesHit();
+
+    CodeCoverageStore.visitEdge(loop);
+    assertThat(edgesHit()).isNotEqualTo(once);
+
+    CodeCoverageStore.visitEdge(loop);
+    CodeCoverageStore.visitEdge(loop);
+    final int[] fourTimes = edgesHit();
+    CodeCoverageStore.visitEdge(loop);
+    assertThat(edgesHit()).isEqualTo(fourTimes);
+  }
+
+  @Test
+  public void shouldClearEdgesWhenReset() {
+    CodeCoverageStore.visitEdge(CodeCoverageStore.edgeLocation(0, 0));
+    CodeCoverageStore.reset();
+    assertThat(edgesHit()).isEmpty();
+
+    CodeCoverageStore.visitEdge(CodeCoverageStore.edgeLocation(0, 0));
+    assertThat(edgesHit()).hasSize(1);
+  }
+
+  @Test
+  public void shouldReturnEdgeIdsBelowEdgeIdCount() {
+    for (int probe = 0; probe != 1000; probe++) {
+      CodeCoverageStore.visitEdge(CodeCoverageStore.edgeLocation(1, probe));
+    }
+    for (final int each : edgesHit()) {
+      assertThat(each).isBetween(0, CodeCoverageStore.edgeIdCount() - 1);
+    }
+  }
+
   @Test
   public void shouldBeSafeToAccessAcrossMultipleThreads()
       throws InterruptedException, ExecutionException {
@@ -375,6 +539,12 @@ public class CodeCoverageStoreTest {
     }
   }
 
+  private int[] edgesHit() {
+    final int[] edges = new int[1024];
+    final int count = CodeCoverageStore.getHitEdges(edges);
+    return Arrays.copyOf(edges, count);
+  }
+
   private void assertHitsLine(final int classId, final int... i) {
     final Collection<Long> actual = CodeCoverageStore.getHits();
     for (final int probe : i) {